@@ -0,0 +1,93 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.common.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time to open an archive and build its index as the number of entries grows, from a buffer
+ * (indexing only) and from a file (mapping and indexing), for each kind of index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArchiveOpenBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    int entries;
+
+    @Param({"linear", "compact", "parallel"})
+    String index;
+
+    Path file;
+    ByteBuffer buffer;
+    ArchiveOptions options;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = SyntheticArchives.create(Files.createTempFile("open-bench", ".jar"), entries, 64, ZipEntry.STORED);
+        buffer = SyntheticArchives.directBuffer(Files.readAllBytes(file));
+        switch (index) {
+            case "compact": options = ArchiveOptions.DEFAULT.withCompactIndex(true); break;
+            case "parallel": options = ArchiveOptions.DEFAULT.withParallelIndexing(true); break;
+            default: options = ArchiveOptions.DEFAULT; break;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long openBuffer() throws IOException {
+        try (Archive archive = Archive.open(buffer, options)) {
+            return archive.getFirstEntryHandle();
+        }
+    }
+
+    @Benchmark
+    public long openFile() throws IOException {
+        try (Archive archive = Archive.open(file, options)) {
+            return archive.getFirstEntryHandle();
+        }
+    }
+}
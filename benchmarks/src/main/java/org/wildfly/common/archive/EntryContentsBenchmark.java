@@ -0,0 +1,89 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.common.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reading entry contents, either into a new buffer or into a reused buffer, for stored and deflated
+ * entries of several sizes.  Each invocation reads the next entry of the archive.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntryContentsBenchmark {
+    private static final int ENTRIES = 256;
+
+    /**
+     * The compression method: 0 for stored, or 8 for deflated.
+     */
+    @Param({"0", "8"})
+    int method;
+
+    @Param({"256", "8192", "262144"})
+    int size;
+
+    Archive archive;
+    long[] handles;
+    ByteBuffer dest;
+    int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        archive = Archive.open(SyntheticArchives.buffer(ENTRIES, size, method));
+        handles = new long[ENTRIES];
+        for (int i = 0; i < ENTRIES; i ++) {
+            handles[i] = archive.getEntryHandle(SyntheticArchives.entryName(i));
+        }
+        dest = ByteBuffer.allocateDirect(size);
+    }
+
+    @TearDown
+    public void tearDown() {
+        archive.close();
+    }
+
+    @Benchmark
+    public ByteBuffer getEntryContents() throws IOException {
+        return archive.getEntryContents(handles[next++ & ENTRIES - 1]);
+    }
+
+    @Benchmark
+    public int getEntryContentsReused() throws IOException {
+        return archive.getEntryContents(handles[next++ & ENTRIES - 1], dest.clear());
+    }
+}
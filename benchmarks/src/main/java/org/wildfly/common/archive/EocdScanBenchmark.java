@@ -0,0 +1,89 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.common.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the word-at-a-time end-of-central-directory search against the original byte-at-a-time search,
+ * for archives with comments of varying length.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EocdScanBenchmark {
+
+    @Param({"0", "1024", "65535"})
+    int commentLength;
+
+    ByteBuffer[] bufs;
+    long length;
+
+    @Setup
+    public void setUp() throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(os)) {
+            zos.setComment("x".repeat(commentLength));
+            zos.putNextEntry(new ZipEntry(SyntheticArchives.entryName(0)));
+            zos.write(SyntheticArchives.entryContent(0, 1024));
+            zos.closeEntry();
+        }
+        final byte[] bytes = os.toByteArray();
+        bufs = new ByteBuffer[] { ByteBuffer.allocateDirect(bytes.length).order(ByteOrder.LITTLE_ENDIAN).put(bytes).flip() };
+        length = bytes.length;
+    }
+
+    @Benchmark
+    public long bulkScan() {
+        return Archive.findEndOfCentralDirectory(bufs, 0, length);
+    }
+
+    @Benchmark
+    public long byteScan() {
+        long eocd = length - Archive.EOCD_END;
+        while (Archive.getUnsignedInt(bufs, eocd) != Archive.SIG_EOCD) {
+            if (eocd == 0) {
+                return -1;
+            }
+            eocd--;
+        }
+        return eocd;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.common.archive;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares opening a large archive with no index cache, with a cold index cache (index built and stored),
+ * and with a warm index cache (index mapped from disk).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IndexCacheBenchmark {
+
+    @Param({"10000", "50000"})
+    int entries;
+
+    Path dir;
+    Path jar;
+    ArchiveOptions cached;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("index-cache-bench");
+        jar = SyntheticArchives.create(dir.resolve("synthetic.jar"), entries, 64, ZipEntry.STORED);
+        cached = ArchiveOptions.DEFAULT.withIndexCacheDirectory(dir.resolve("cache"));
+        // prime the cache
+        Archive.open(jar, cached).close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> walk = Files.walk(dir)) {
+            walk.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long openUncached() throws IOException {
+        try (Archive archive = Archive.open(jar)) {
+            return archive.getFirstEntryHandle();
+        }
+    }
+
+    @Benchmark
+    public long openWarmCache() throws IOException {
+        try (Archive archive = Archive.open(jar, cached)) {
+            return archive.getFirstEntryHandle();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ColdCache {
+        Path cacheDir;
+        ArchiveOptions options;
+
+        @Setup(Level.Invocation)
+        public void setUp(IndexCacheBenchmark bench) throws IOException {
+            cacheDir = Files.createTempDirectory(bench.dir, "cold");
+            options = ArchiveOptions.DEFAULT.withIndexCacheDirectory(cacheDir);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() throws IOException {
+            try (Stream<Path> walk = Files.walk(cacheDir)) {
+                walk.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    public long openColdCache(ColdCache cold) throws IOException {
+        try (Archive archive = Archive.open(jar, cold.options)) {
+            return archive.getFirstEntryHandle();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.common.archive;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the latency of looking up entries by name, for names which are present and names which are not.
+ * Each invocation looks up the next name of a shuffled set, so that successive lookups touch different slots.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+    private static final int NAMES = 4096;
+
+    @Param({"1000", "100000"})
+    int entries;
+
+    @Param({"false", "true"})
+    boolean compactIndex;
+
+    Archive archive;
+    String[] hits;
+    String[] misses;
+    int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        archive = Archive.open(SyntheticArchives.buffer(entries, 16, ZipEntry.STORED), ArchiveOptions.DEFAULT.withCompactIndex(compactIndex));
+        hits = new String[NAMES];
+        misses = new String[NAMES];
+        for (int i = 0; i < NAMES; i ++) {
+            // spread the names across the archive
+            final int entry = (int) ((i * 0x9E3779B1L & 0xffff_ffffL) % entries);
+            hits[i] = SyntheticArchives.entryName(entry);
+            // same package, so misses still share a prefix and a length with real names
+            misses[i] = SyntheticArchives.entryName(entry).replace("GeneratedClass", "MissingClass_");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        archive.close();
+    }
+
+    @Benchmark
+    public long hit() {
+        return archive.getEntryHandle(hits[next++ & NAMES - 1]);
+    }
+
+    @Benchmark
+    public long miss() {
+        return archive.getEntryHandle(misses[next++ & NAMES - 1]);
+    }
+}
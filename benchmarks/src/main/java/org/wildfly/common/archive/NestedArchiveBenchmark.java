@@ -0,0 +1,99 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.common.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures opening an archive which is nested in another archive, when the nested archive is stored (and so is
+ * opened in place) and when it is deflated (and so is inflated into memory first).  The outer archive is opened
+ * by each invocation, since inflated nested archives are cached by their outer archive.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NestedArchiveBenchmark {
+    private static final String STORED = "lib/stored.jar";
+    private static final String DEFLATED = "lib/deflated.jar";
+
+    @Param({"100", "10000"})
+    int entries;
+
+    ByteBuffer outer;
+    ArchiveOptions options;
+
+    @Setup
+    public void setUp() throws IOException {
+        final byte[] inner = SyntheticArchives.bytes(entries, 64, ZipEntry.DEFLATED);
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(os)) {
+            final ZipEntry stored = new ZipEntry(STORED);
+            stored.setMethod(ZipEntry.STORED);
+            stored.setSize(inner.length);
+            final CRC32 crc32 = new CRC32();
+            crc32.update(inner);
+            stored.setCrc(crc32.getValue());
+            zos.putNextEntry(stored);
+            zos.write(inner);
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry(DEFLATED));
+            zos.write(inner);
+            zos.closeEntry();
+        }
+        outer = SyntheticArchives.directBuffer(os.toByteArray());
+        options = ArchiveOptions.DEFAULT.withCompressedNestedArchives(true);
+    }
+
+    @Benchmark
+    public long openStored() throws IOException {
+        return openNested(STORED);
+    }
+
+    @Benchmark
+    public long openDeflated() throws IOException {
+        return openNested(DEFLATED);
+    }
+
+    private long openNested(final String name) throws IOException {
+        try (Archive archive = Archive.open(outer, options)) {
+            return archive.getNestedArchive(archive.getEntryHandle(name)).getFirstEntryHandle();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.common.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Deterministic generator for synthetic benchmark archives.
+ */
+final class SyntheticArchives {
+    private SyntheticArchives() {}
+
+    static String entryName(int i) {
+        return "org/example/pkg" + (i % 97) + "/sub" + (i % 13) + "/GeneratedClass" + i + ".class";
+    }
+
+    static byte[] entryContent(int i, int size) {
+        // compressible but not trivially so
+        final Random random = new Random(i);
+        final byte[] bytes = new byte[size];
+        for (int j = 0; j < size; j ++) {
+            bytes[j] = (byte) ('a' + random.nextInt(8));
+        }
+        return bytes;
+    }
+
+    /**
+     * Write a synthetic archive.
+     *
+     * @param file the file to write
+     * @param entries the number of entries
+     * @param entrySize the size of each entry
+     * @param method the compression method ({@link ZipEntry#STORED} or {@link ZipEntry#DEFLATED})
+     * @return the file
+     * @throws IOException if writing fails
+     */
+    static Path create(Path file, int entries, int entrySize, int method) throws IOException {
+        try (OutputStream os = Files.newOutputStream(file)) {
+            write(os, entries, entrySize, method);
+        }
+        return file;
+    }
+
+    /**
+     * Generate a synthetic archive in a direct buffer.
+     *
+     * @param entries the number of entries
+     * @param entrySize the size of each entry
+     * @param method the compression method ({@link ZipEntry#STORED} or {@link ZipEntry#DEFLATED})
+     * @return the buffer
+     * @throws IOException if writing fails
+     */
+    static ByteBuffer buffer(int entries, int entrySize, int method) throws IOException {
+        return directBuffer(bytes(entries, entrySize, method));
+    }
+
+    static byte[] bytes(int entries, int entrySize, int method) throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        write(os, entries, entrySize, method);
+        return os.toByteArray();
+    }
+
+    static ByteBuffer directBuffer(byte[] bytes) {
+        return ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+    }
+
+    static void write(OutputStream os, int entries, int entrySize, int method) throws IOException {
+        try (ZipOutputStream zos = new ZipOutputStream(os)) {
+            for (int i = 0; i < entries; i ++) {
+                final byte[] content = entryContent(i, entrySize);
+                final ZipEntry entry = new ZipEntry(entryName(i));
+                entry.setMethod(method);
+                if (method == ZipEntry.STORED) {
+                    final CRC32 crc32 = new CRC32();
+                    crc32.update(content);
+                    entry.setSize(content.length);
+                    entry.setCompressedSize(content.length);
+                    entry.setCrc(crc32.getValue());
+                }
+                zos.putNextEntry(entry);
+                zos.write(content);
+                zos.closeEntry();
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.common.iteration;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the bulk operations of array and buffer backed byte iterators with the byte-at-a-time implementations
+ * inherited from {@link ByteIterator}, which are measured through a wrapper that only forwards the abstract methods.
+ * This class lives in the iteration package so that it can extend {@code ByteIterator}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ByteIteratorBenchmark {
+
+    @Param({"array", "buffer", "directBuffer", "limited", "concat", "default"})
+    String source;
+
+    @Param({"64", "65536"})
+    int size;
+
+    byte[] data;
+    byte[] dst;
+    ByteBuffer dstBuffer;
+    ByteBuffer directData;
+
+    @Setup
+    public void setUp() {
+        data = new byte[size];
+        new Random(size).nextBytes(data);
+        dst = new byte[size];
+        dstBuffer = ByteBuffer.allocate(size);
+        directData = ByteBuffer.allocateDirect(size).put(data).flip();
+    }
+
+    private ByteIterator iterator() {
+        switch (source) {
+            case "array": return ByteIterator.ofBytes(data);
+            case "buffer": return ByteIterator.ofByteBuffer(ByteBuffer.wrap(data));
+            case "directBuffer": return ByteIterator.ofByteBuffer(directData.duplicate());
+            case "limited": return ByteIterator.ofBytes(data).limitedTo(size);
+            case "concat": return ByteIterator.ofIterators(ByteIterator.ofBytes(data, 0, size / 2), ByteIterator.ofBytes(data, size / 2, size - size / 2));
+            case "default": return new DefaultByteIterator(ByteIterator.ofBytes(data));
+            default: throw new IllegalArgumentException(source);
+        }
+    }
+
+    @Benchmark
+    public int drainArray() {
+        return iterator().drain(dst, 0, size);
+    }
+
+    @Benchmark
+    public int drainBuffer() {
+        return iterator().drain(dstBuffer.clear());
+    }
+
+    @Benchmark
+    public long skip() {
+        final ByteIterator iter = iterator();
+        return iter.skip(size - 1) + iter.next();
+    }
+
+    @Benchmark
+    public void getBE32(Blackhole bh) {
+        final ByteIterator iter = iterator();
+        for (int i = 0; i < size; i += 4) {
+            bh.consume(iter.getBE32());
+        }
+    }
+
+    @Benchmark
+    public void getLE64(Blackhole bh) {
+        final ByteIterator iter = iterator();
+        for (int i = 0; i < size; i += 8) {
+            bh.consume(iter.getLE64());
+        }
+    }
+
+    /**
+     * A byte iterator which inherits every bulk operation from {@link ByteIterator}.
+     */
+    static final class DefaultByteIterator extends ByteIterator {
+        private final ByteIterator delegate;
+
+        DefaultByteIterator(final ByteIterator delegate) {
+            this.delegate = delegate;
+        }
+
+        public boolean hasNext() {
+            return delegate.hasNext();
+        }
+
+        public boolean hasPrevious() {
+            return delegate.hasPrevious();
+        }
+
+        public int next() {
+            return delegate.next();
+        }
+
+        public int peekNext() {
+            return delegate.peekNext();
+        }
+
+        public int previous() {
+            return delegate.previous();
+        }
+
+        public int peekPrevious() {
+            return delegate.peekPrevious();
+        }
+
+        public long getIndex() {
+            return delegate.getIndex();
+        }
+    }
+}
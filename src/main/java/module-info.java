@@ -12,6 +12,7 @@ module org.wildfly.common {
     requires org.jboss.logging;
 
     requires static io.smallrye.common.function;
+    requires static jdk.jfr;
 
     requires static org.jboss.logging.annotations;
 }
\ No newline at end of file
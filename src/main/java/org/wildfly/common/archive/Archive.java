@@ -5,17 +5,51 @@ import static java.lang.Math.min;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
 import java.util.zip.DataFormatException;
 import java.util.zip.Inflater;
-import java.util.zip.InflaterInputStream;
 
 import org.wildfly.common.Assert;
 
@@ -159,10 +193,10 @@ public final class Archive implements Closeable {
     public static final int EOCD_ZIP64_DISK_NUMBER = 16;
     public static final int EOCD_ZIP64_CD_FIRST_DISK_NUMBER = 20;
     public static final int EOCD_ZIP64_CDE_COUNT_THIS_DISK = 24;
-    public static final int EOCD_ZIP64_CDE_COUNT_ALL = 28;
-    public static final int EOCD_ZIP64_CD_SIZE = 36;
-    public static final int EOCD_ZIP64_CD_START_OFFSET = 44;
-    public static final int EOCD_ZIP64_END = 52;
+    public static final int EOCD_ZIP64_CDE_COUNT_ALL = 32;
+    public static final int EOCD_ZIP64_CD_SIZE = 40;
+    public static final int EOCD_ZIP64_CD_START_OFFSET = 48;
+    public static final int EOCD_ZIP64_END = 56;
 
     public static final int SIG_EOCDL_ZIP64 = 0x07064b50;
 
@@ -179,58 +213,263 @@ public final class Archive implements Closeable {
     private static final int BUF_SHIFT = Integer.numberOfTrailingZeros(BUF_SIZE_MAX);
     private static final int BUF_SIZE_MASK = BUF_SIZE_MAX - 1;
 
+    /**
+     * Minimum number of entries for which parallel indexing is worthwhile.
+     */
+    static final int PARALLEL_INDEX_THRESHOLD = 4096;
+
+    private static final CompletableFuture<Void> PRELOAD_NONE = CompletableFuture.completedFuture(null);
+    /**
+     * The maximum number of threads of the default preload executor.
+     */
+    private static final int PRELOAD_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+    /**
+     * The default preload executor, whose daemon threads are shared by all archives and exit when idle.
+     */
+    private static final Executor PRELOAD_EXECUTOR = createPreloadExecutor();
+
+    private static final int TRANSFER_BUFFER_SIZE = 0x10000;
+    private static final byte[] VERSIONS_PREFIX = "META-INF/versions/".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MANIFEST_NAME = JarFile.MANIFEST_NAME.getBytes(StandardCharsets.US_ASCII);
+    /**
+     * The approximate number of compressed bytes verified by each task of {@link #verifyAll(Executor)}.
+     */
+    private static final long VERIFY_BATCH_SIZE = 0x40_0000;
+
     private final ByteBuffer[] bufs;
     private final long offset;
     private final long length;
     private final long cd;
+    private final long cdSize;
+    private final int entries;
     private final Index index;
+    /**
+     * The applicable versioned entries of a multi-release JAR by unversioned name, or {@code null} if there are none.
+     */
+    private final Index versionIndex;
+    private final ArchiveOptions options;
+    /**
+     * The metrics to record activity to, or {@code null} if activity is not recorded.
+     */
+    private final ArchiveMetrics metrics;
+
+    private volatile long[] entryHandles;
+    private volatile PrefixIndex prefixIndex;
+    /**
+     * Inflated nested archives by entry handle, or {@code null} if compressed nested archives are not enabled.
+     */
+    private final Map<Long, Archive> inflatedNestedArchives;
+    private final ContentCache contentCache;
+    private boolean closed;
+    private volatile CompletableFuture<Void> preload = PRELOAD_NONE;
+    /**
+     * The file from which this archive was opened, or {@code null} if it was not opened from a file.
+     */
+    private Path path;
+    /**
+     * The attributes of the file from which this archive was opened, or {@code null} if it was not opened from a file.
+     */
+    private BasicFileAttributes attributes;
+    /**
+     * The CRC of the central directory as it was when this archive was opened from a file, if incremental reopening
+     * is enabled and there is no index cache.
+     */
+    private int cdCrc;
+    /**
+     * Whether this archive has {@link #cdCrc} to reuse its index.
+     */
+    private boolean hasCdCrc;
+    /**
+     * Whether the index of this archive was copied from a previous archive by {@link #reopen(Archive)}.
+     */
+    private boolean indexRelocated;
 
-    private Archive(final ByteBuffer[] bufs, final long offset, final long length, final long cd, final Index index) {
+    private Archive(final ByteBuffer[] bufs, final long offset, final long length, final long cd, final long cdSize, final int entries, final Index index, final Index versionIndex, final ArchiveOptions options) {
         this.bufs = bufs;
         this.offset = offset;
         this.length = length;
         this.cd = cd;
+        this.cdSize = cdSize;
+        this.entries = entries;
         this.index = index;
+        this.versionIndex = versionIndex;
+        this.options = options;
+        metrics = options.getMetrics();
+        inflatedNestedArchives = options.isCompressedNestedArchives() ? new ConcurrentHashMap<>() : null;
+        contentCache = options.getContentCacheSize() > 0 ? new ContentCache(options.getContentCacheSize(), options.getContentCacheRetention()) : null;
     }
 
     public static Archive open(Path path) throws IOException {
+        return open(path, ArchiveOptions.DEFAULT);
+    }
+
+    public static Archive open(Path path, ArchiveOptions options) throws IOException {
+        Assert.checkNotNullParam("path", path);
+        Assert.checkNotNullParam("options", options);
+        final ByteBuffer[] array;
+        final long fileSize;
+        final BasicFileAttributes attributes;
         try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
-            long size = fc.size();
-            final int bufCnt = Math.toIntExact((size + BUF_SIZE_MASK) >> BUF_SHIFT);
-            final ByteBuffer[] array = new ByteBuffer[bufCnt];
-            long offs = 0;
-            int idx = 0;
-            while (size > BUF_SIZE_MASK) {
-                array[idx++] = fc.map(FileChannel.MapMode.READ_ONLY, offs, BUF_SIZE_MAX).order(ByteOrder.LITTLE_ENDIAN);
-                size -= BUF_SIZE_MAX;
-                offs += BUF_SIZE_MAX;
-            }
-            array[idx] = fc.map(FileChannel.MapMode.READ_ONLY, offs, size).order(ByteOrder.LITTLE_ENDIAN);
-            return open(array);
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            fileSize = fc.size();
+            array = map(fc, fileSize);
+        }
+        final IndexCache cache = options.hasIndexCache() ? IndexCache.create(path, fileSize, options) : null;
+        final Archive archive = open(array, 0, capacity(array), options, cache, null);
+        archive.setFile(path, attributes);
+        archive.startPreload();
+        return archive;
+    }
+
+    /**
+     * Open the file of an archive again after it has changed, such as by having entries appended to it.  If the
+     * file was changed in place, the whole buffers of the previous archive which are still within the file are
+     * reused rather than mapped again.  If it was replaced, such as by renaming another file over it, it is mapped
+     * again entirely.  A file is recognized by its file key; if the file system has none, only an unchanged file is
+     * treated as the same file.
+     * <p>
+     * If {@linkplain ArchiveOptions#withIncrementalReopen(boolean) incremental reopening} is enabled, the file was
+     * changed in place and has grown, and its new directory begins with a copy of the previous directory, then the
+     * index of the previous archive is copied and only the new entries are indexed.  The previous directory itself
+     * may have been overwritten.  Otherwise, the archive is indexed from scratch.
+     * <p>
+     * The archive is opened with the options of the previous archive.  The previous archive is not closed, and its
+     * entry handles are not valid for the new archive.
+     *
+     * @param previous the previous archive, which must have been opened from a file (must not be {@code null})
+     * @return the new archive (not {@code null})
+     * @throws IllegalArgumentException if the previous archive was not opened from a file
+     * @throws IOException if the archive file could not be opened or is invalid
+     */
+    public static Archive reopen(Archive previous) throws IOException {
+        Assert.checkNotNullParam("previous", previous);
+        final Path path = previous.path;
+        if (path == null) {
+            throw new IllegalArgumentException("Archive was not opened from a file");
+        }
+        final ArchiveOptions options = previous.options;
+        if (options.hasIndexCache()) {
+            // the persistent index is already reused if the directory has not changed
+            return open(path, options);
+        }
+        final ByteBuffer[] array;
+        final long fileSize;
+        final BasicFileAttributes attributes;
+        final boolean sameFile;
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            fileSize = fc.size();
+            // the previous mappings only show this file if it was changed in place rather than replaced
+            sameFile = previous.isSameFile(attributes);
+            final int reused = ! sameFile ? 0 : fileSize == previous.length ? previous.bufs.length : (int) (min(fileSize, previous.length) >> BUF_SHIFT);
+            array = map(fc, fileSize, previous.bufs, reused);
+        }
+        final Archive archive = open(array, 0, fileSize, options, null, sameFile && fileSize > previous.length ? previous : null);
+        archive.setFile(path, attributes);
+        archive.startPreload();
+        return archive;
+    }
+
+    /**
+     * Record the file from which this archive was opened.
+     */
+    private void setFile(final Path path, final BasicFileAttributes attributes) {
+        this.path = path;
+        this.attributes = attributes;
+        if (options.isIncrementalReopen() && ! options.hasIndexCache() && cd >= 0 && cdSize >= 0 && cd + cdSize <= length) {
+            // the buffers show later changes to the file, so the directory is checksummed now for reopen()
+            cdCrc = IndexCache.checksum(bufs, offset + cd, cdSize);
+            hasCdCrc = true;
         }
     }
 
+    /**
+     * Determine whether the file with the given attributes is the file from which this archive was opened, rather
+     * than a file which has replaced it.  If the file system has no file keys, only an unchanged file is known to
+     * be the same file.
+     */
+    private boolean isSameFile(final BasicFileAttributes attributes) {
+        final Object fileKey = this.attributes.fileKey();
+        if (fileKey != null && attributes.fileKey() != null) {
+            return fileKey.equals(attributes.fileKey());
+        }
+        return attributes.size() == this.attributes.size() && attributes.lastModifiedTime().equals(this.attributes.lastModifiedTime());
+    }
+
+    /**
+     * Determine whether the index of this archive was copied from a previous archive by {@link #reopen(Archive)}.
+     */
+    boolean isIndexRelocated() {
+        return indexRelocated;
+    }
+
+    private static ByteBuffer[] map(final FileChannel fc, long size) throws IOException {
+        return map(fc, size, null, 0);
+    }
+
+    /**
+     * Map a file, reusing the given number of leading buffers of a previous mapping of the same file.
+     */
+    private static ByteBuffer[] map(final FileChannel fc, final long size, final ByteBuffer[] previous, final int reused) throws IOException {
+        final int bufCnt = Math.toIntExact((size + BUF_SIZE_MASK) >> BUF_SHIFT);
+        final ByteBuffer[] array = new ByteBuffer[bufCnt];
+        if (reused > 0) {
+            System.arraycopy(previous, 0, array, 0, reused);
+        }
+        long offs = (long) reused << BUF_SHIFT;
+        for (int idx = reused; idx < bufCnt; idx ++) {
+            final long cnt = min(size - offs, BUF_SIZE_MAX);
+            array[idx] = fc.map(FileChannel.MapMode.READ_ONLY, offs, cnt).order(ByteOrder.LITTLE_ENDIAN);
+            offs += cnt;
+        }
+        return array;
+    }
+
     public static Archive open(ByteBuffer buf) throws IOException {
+        return open(buf, ArchiveOptions.DEFAULT);
+    }
+
+    /**
+     * Open an archive held in a buffer.  Persistent index options are ignored.
+     *
+     * @param buf the archive buffer (must not be {@code null})
+     * @param options the archive options (must not be {@code null})
+     * @return the archive (not {@code null})
+     * @throws IOException if the archive is invalid
+     */
+    public static Archive open(ByteBuffer buf, ArchiveOptions options) throws IOException {
         Assert.checkNotNullParam("buf", buf);
+        Assert.checkNotNullParam("options", options);
         if (buf.order() == ByteOrder.BIG_ENDIAN) {
             buf = buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
         }
-        return open(new ByteBuffer[] { buf });
+        return open(new ByteBuffer[] { buf }, options);
     }
 
-    static Archive open(ByteBuffer[] bufs) throws IOException {
-        return open(bufs, 0, capacity(bufs));
+    static Archive open(ByteBuffer[] bufs, ArchiveOptions options) throws IOException {
+        return open(bufs, 0, capacity(bufs), options);
     }
 
-    static Archive open(ByteBuffer[] bufs, long offset, long length) throws IOException {
+    static Archive open(ByteBuffer[] bufs, long offset, long length, ArchiveOptions options) throws IOException {
+        return open(bufs, offset, length, options, null, null);
+    }
+
+    private static Archive open(ByteBuffer[] bufs, long offset, long length, ArchiveOptions options, IndexCache cache, Archive previous) throws IOException {
+        final ArchiveMetrics metrics = options.getMetrics();
+        if (metrics == null) {
+            return openArchive(bufs, offset, length, options, cache, previous);
+        }
+        final long start = System.nanoTime();
+        final Archive archive = openArchive(bufs, offset, length, options, cache, previous);
+        metrics.recordOpen(System.nanoTime() - start);
+        return archive;
+    }
+
+    private static Archive openArchive(ByteBuffer[] bufs, long offset, long length, ArchiveOptions options, IndexCache cache, Archive previous) throws IOException {
         // find the directory by looking first at its expected location and working our way backwards
-        long eocd = length - EOCD_END;
-        // todo: this could be optimized a bit (boyer-moore for example)
-        while (getUnsignedInt(bufs, offset + eocd) != SIG_EOCD) {
-            if (eocd == 0) {
-                throw new IOException("Invalid archive");
-            }
-            eocd--;
+        final long eocd = findEndOfCentralDirectory(bufs, offset, length);
+        if (eocd == -1) {
+            throw new IOException("Invalid archive");
         }
         int entries = getUnsignedShort(bufs, offset + eocd + EOCD_CDE_COUNT_ALL);
         // validate the EOCD record
@@ -240,7 +479,7 @@ public final class Archive implements Closeable {
         // check now for zip64
         long eocdLocZip64 = eocd - EOCDL_ZIP64_END;
         long eocdZip64 = -1;
-        if (getInt(bufs, offset + eocdLocZip64 + EOCDL_ZIP64_SIGNATURE) == SIG_EOCDL_ZIP64) {
+        if (eocdLocZip64 >= 0 && getInt(bufs, offset + eocdLocZip64 + EOCDL_ZIP64_SIGNATURE) == SIG_EOCDL_ZIP64) {
             // probably zip64
             // validate the EOCDL_ZIP64
             if (getInt(bufs, offset + eocdLocZip64 + EOCDL_ZIP64_DISK_COUNT) != 1 || getInt(bufs, offset + eocdLocZip64 + EOCDL_ZIP64_EOCD_DISK_NUMBER) != 0) {
@@ -257,6 +496,10 @@ public final class Archive implements Closeable {
         if (cd == 0xffffffffL && eocdZip64 != -1) {
             cd = getLong(bufs, offset + eocdZip64 + EOCD_ZIP64_CD_START_OFFSET);
         }
+        long cdSize = getUnsignedInt(bufs, offset + eocd + EOCD_CD_SIZE);
+        if (cdSize == 0xffffffffL && eocdZip64 != -1) {
+            cdSize = getLong(bufs, offset + eocdZip64 + EOCD_ZIP64_CD_SIZE);
+        }
         if (entries == 0xffff && eocdZip64 != -1) {
             final long cnt = getUnsignedInt(bufs, offset + eocdZip64 + EOCD_ZIP64_CDE_COUNT_ALL);
             if (cnt > 0x07ff_ffffL) {
@@ -264,29 +507,307 @@ public final class Archive implements Closeable {
             }
             entries = (int) cnt;
         }
+        if (previous != null) {
+            final Index index = previous.relocateIndex(bufs, cd, cdSize, entries, length);
+            if (index != null) {
+                final Archive archive = create(bufs, offset, length, cd, cdSize, entries, index, options);
+                archive.indexRelocated = true;
+                return archive;
+            }
+        }
+        // use the persistent index if it is present and current
+        Index index;
+        int cdCrc = 0;
+        if (cd < 0 || cdSize < 0 || cd + cdSize > length) {
+            // can't checksum the directory, so don't cache it
+            cache = null;
+        }
+        if (cache != null) {
+            cdCrc = IndexCache.checksum(bufs, offset + cd, cdSize);
+            final IndexCache.Indexes cached = cache.load(cd, cdCrc, entries, length, options.getMultiReleaseVersion());
+            if (cached != null) {
+                return new Archive(bufs, offset, length, cd, cdSize, entries, cached.index, cached.versionIndex, options);
+            }
+        }
 
         // generate the index
 
-        Index index;
-        if (length <= 0xfffe) {
-            index = new TinyIndex(entries);
-        } else if (length <= 0xffff_ffffeL) {
-            index = new LargeIndex(entries);
+        index = null;
+        if (cache == null && options.isCompactIndex()) {
+            // a persistent index is mapped rather than held on the heap, so it is never compacted
+            final CompactIndex compactIndex = CompactIndex.create(cd, cdSize, entries);
+            if (compactIndex != null) {
+                buildIndex(bufs, offset, cd, entries, compactIndex, options);
+                if (! compactIndex.overflowed()) {
+                    index = compactIndex;
+                }
+            }
+        }
+        if (index == null) {
+            final ArrayIndex arrayIndex = Index.create(length, entries);
+            buildIndex(bufs, offset, cd, entries, arrayIndex, options);
+            index = arrayIndex;
+        }
+        final Index versionIndex = buildVersionIndex(bufs, offset, length, cd, entries, index, options);
+        if (cache != null) {
+            cache.store(index, versionIndex, cd, cdCrc, entries, length, options.getMultiReleaseVersion());
+        }
+        return new Archive(bufs, offset, length, cd, cdSize, entries, index, versionIndex, options);
+    }
+
+    /**
+     * Get a copy of the index of this archive for a new version of its file, whose new directory begins with a copy
+     * of the directory of this archive.  The entries which follow the copy are added to the index.
+     *
+     * @return the index, or {@code null} if the index of this archive cannot be reused
+     */
+    private Index relocateIndex(final ByteBuffer[] bufs, final long cd, final long cdSize, final int entries, final long length) throws IOException {
+        final long oldCd = this.cd;
+        final long oldCdSize = this.cdSize;
+        final int oldEntries = this.entries;
+        if (! hasCdCrc || ! (this.index instanceof ArrayIndex) || offset != 0 || entries < oldEntries || cd < oldCd || oldCdSize > cdSize || cd + cdSize > length) {
+            return null;
+        }
+        // the previous directory is usually overwritten, so the start of the new one is checked against its checksum
+        if (IndexCache.checksum(bufs, cd, oldCdSize) != cdCrc) {
+            return null;
+        }
+        final ArrayIndex index = ((ArrayIndex) this.index).relocate(cd - oldCd, entries, length);
+        if (index != null) {
+            buildIndex(bufs, 0, cd + oldCdSize, entries - oldEntries, index);
+        }
+        return index;
+    }
+
+    private static Archive create(final ByteBuffer[] bufs, final long offset, final long length, final long cd, final long cdSize, final int entries, final Index index, final ArchiveOptions options) throws IOException {
+        return new Archive(bufs, offset, length, cd, cdSize, entries, index, buildVersionIndex(bufs, offset, length, cd, entries, index, options), options);
+    }
+
+    /**
+     * Build an index of the versioned entries of a multi-release JAR which apply to the configured release, keyed
+     * by their unversioned names.  Only the highest applicable version of each entry is included.
+     *
+     * @return the index, or {@code null} if no release is configured, this is not a multi-release JAR, or it has
+     *      no applicable versioned entries
+     */
+    private static Index buildVersionIndex(final ByteBuffer[] bufs, final long offset, final long length, final long cd, final int entries, final Index index, final ArchiveOptions options) throws IOException {
+        final int release = options.getMultiReleaseVersion();
+        if (release == 0) {
+            return null;
+        }
+        final long manifest = findEntry(bufs, offset, index, MANIFEST_NAME);
+        if (manifest == -1) {
+            return null;
+        }
+        try (InputStream is = getEntryStream(bufs, offset, manifest, options.getInflaterPool(), null)) {
+            if (! Boolean.parseBoolean(new Manifest(is).getMainAttributes().getValue(Attributes.Name.MULTI_RELEASE))) {
+                return null;
+            }
+        }
+        final Map<String, long[]> applicable = new HashMap<>();
+        long cde = cd;
+        for (int i = 0; i < entries; i ++) {
+            final int prefixLen = getVersionPrefixLength(bufs, offset, cde);
+            if (prefixLen != -1) {
+                final String name = getNameOfEntry(bufs, offset + cde);
+                final int version = parseVersion(name, VERSIONS_PREFIX.length, prefixLen - 1);
+                if (version >= 9 && version <= release && prefixLen < name.length() && ! name.endsWith("/")) {
+                    final long[] existing = applicable.putIfAbsent(name.substring(prefixLen), new long[] { version, cde });
+                    if (existing != null && existing[0] < version) {
+                        existing[0] = version;
+                        existing[1] = cde;
+                    }
+                }
+            }
+            cde = nextEntry(bufs, offset, cde);
+        }
+        if (applicable.isEmpty()) {
+            return null;
+        }
+        final ArrayIndex versionIndex = Index.create(length, applicable.size());
+        for (Map.Entry<String, long[]> entry : applicable.entrySet()) {
+            versionIndex.put(entry.getKey().hashCode(), entry.getValue()[1]);
+        }
+        return versionIndex;
+    }
+
+    /**
+     * Find an entry by its ASCII name in the given index, without regard to versioned entries.
+     *
+     * @return the entry handle, or -1 if there is no such entry
+     */
+    private static long findEntry(final ByteBuffer[] bufs, final long offset, final Index index, final byte[] name) {
+        final int hc = Utf8.hashCode(name, 0, name.length);
+        for (int i = index.first(hc); i != -1; i = index.next(hc, i)) {
+            final long entryHandle = index.get(i);
+            if (entryNameEquals(bufs, offset, entryHandle, 0, name, 0, name.length)) {
+                return entryHandle;
+            }
+        }
+        return -1;
+    }
+
+    private static int parseVersion(final String name, final int start, final int end) {
+        if (start == end || end - start > 4) {
+            return -1;
+        }
+        int version = 0;
+        for (int i = start; i < end; i ++) {
+            final char c = name.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            version = version * 10 + c - '0';
+        }
+        return version;
+    }
+
+    /**
+     * Get the length of the {@code META-INF/versions/N/} prefix of the given entry name.
+     *
+     * @return the prefix length, or -1 if the entry is not in a version directory
+     */
+    int getVersionPrefixLength(final long entryHandle) {
+        return getVersionPrefixLength(bufs, offset, entryHandle);
+    }
+
+    private static int getVersionPrefixLength(final ByteBuffer[] bufs, final long offset, final long entryHandle) {
+        final long name = offset + entryHandle + CDE_END;
+        final int nameLen = getUnsignedShort(bufs, offset + entryHandle + CDE_FILE_NAME_LENGTH);
+        final byte[] prefix = VERSIONS_PREFIX;
+        if (nameLen <= prefix.length) {
+            return -1;
+        }
+        for (int i = 0; i < prefix.length; i ++) {
+            if (getByte(bufs, name + i) != prefix[i]) {
+                return -1;
+            }
+        }
+        for (int i = prefix.length; i < nameLen; i ++) {
+            if (getByte(bufs, name + i) == '/') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static void buildIndex(final ByteBuffer[] bufs, final long offset, final long cd, final int entries, final WritableIndex index, final ArchiveOptions options) throws IOException {
+        if (options.isParallelIndexing() && entries >= PARALLEL_INDEX_THRESHOLD) {
+            buildIndexParallel(bufs, offset, cd, entries, index);
         } else {
-            index = new HugeIndex(entries);
+            buildIndex(bufs, offset, cd, entries, index);
         }
+    }
+
+    private static void buildIndex(final ByteBuffer[] bufs, final long offset, final long cd, final int entries, final WritableIndex index) throws IOException {
         // iterate the directory
-        final int mask = index.getMask();
         long cde = cd;
         for (int i = 0; i < entries; i ++) {
             if (getInt(bufs, offset + cde + CDE_SIGNATURE) != SIG_CDE) {
                 throw new IOException("Archive appears to be corrupted");
             }
             int hc = getHashCodeOfEntry(bufs, offset + cde);
-            index.put(hc & mask, cde);
-            cde = cde + CDE_END + getUnsignedShort(bufs, offset + cde + CDE_FILE_NAME_LENGTH) + getUnsignedShort(bufs, offset + cde + CDE_EXTRA_LENGTH) + getUnsignedShort(bufs, offset + cde + CDE_COMMENT_LENGTH);
+            index.put(hc, cde);
+            cde = nextEntry(bufs, offset, cde);
         }
-        return new Archive(bufs, offset, length, cd, index);
+    }
+
+    /**
+     * Build the index by hashing names in parallel.  The table is still filled in directory order, so the result
+     * is identical to that of {@link #buildIndex}.
+     */
+    private static void buildIndexParallel(final ByteBuffer[] bufs, final long offset, final long cd, final int entries, final WritableIndex index) throws IOException {
+        final long[] offsets = getEntryOffsets(bufs, offset, cd, entries);
+        final int[] hashes = new int[entries];
+        Arrays.parallelSetAll(hashes, i -> getHashCodeOfEntry(bufs, offset + offsets[i]));
+        for (int i = 0; i < entries; i ++) {
+            index.put(hashes[i], offsets[i]);
+        }
+    }
+
+    static long[] getEntryOffsets(final ByteBuffer[] bufs, final long offset, final long cd, final int entries) throws IOException {
+        final long[] offsets = new long[entries];
+        long cde = cd;
+        for (int i = 0; i < entries; i ++) {
+            if (getInt(bufs, offset + cde + CDE_SIGNATURE) != SIG_CDE) {
+                throw new IOException("Archive appears to be corrupted");
+            }
+            offsets[i] = cde;
+            cde = nextEntry(bufs, offset, cde);
+        }
+        return offsets;
+    }
+
+    static void updateChecksum(final Checksum checksum, final ByteBuffer[] bufs, final long start, final long size) {
+        long cnt = 0;
+        while (cnt < size) {
+            final ByteBuffer buf = bufs[bufIdx(start + cnt)].duplicate();
+            buf.position(bufOffs(start + cnt));
+            buf.limit((int) min(buf.capacity(), buf.position() + size - cnt));
+            cnt += buf.remaining();
+            checksum.update(buf);
+        }
+    }
+
+    private static long nextEntry(final ByteBuffer[] bufs, final long offset, final long cde) {
+        return cde + CDE_END + getUnsignedShort(bufs, offset + cde + CDE_FILE_NAME_LENGTH) + getUnsignedShort(bufs, offset + cde + CDE_EXTRA_LENGTH) + getUnsignedShort(bufs, offset + cde + CDE_COMMENT_LENGTH);
+    }
+
+    /**
+     * Find the end-of-central-directory record by scanning backwards from its expected location.  Since the
+     * archive comment is at most 65535 bytes long, only that window needs to be searched.  The scan examines
+     * a whole word at a time, and only checks for the full signature at positions holding its first byte.
+     *
+     * @param bufs the archive buffers
+     * @param offset the archive offset
+     * @param length the archive length
+     * @return the archive-relative position of the record, or -1 if it was not found
+     */
+    static long findEndOfCentralDirectory(ByteBuffer[] bufs, long offset, long length) {
+        long pos = length - EOCD_END;
+        if (pos < 0) {
+            return -1;
+        }
+        if (getInt(bufs, offset + pos) == SIG_EOCD) {
+            // no comment, the common case
+            return pos;
+        }
+        final long limit = Math.max(0, pos - 0xffff);
+        while (pos >= limit) {
+            final long start = pos - 7;
+            final int bi = bufIdx(offset + start);
+            if (start >= limit && bi == bufIdx(offset + pos)) {
+                // little-endian, so the byte at start is the lowest byte of the word
+                long matches = findBytes(bufs[bi].getLong(bufOffs(offset + start)), (byte) SIG_EOCD);
+                while (matches != 0) {
+                    final int bit = 63 - Long.numberOfLeadingZeros(matches);
+                    final long candidate = start + (bit >> 3);
+                    if (getInt(bufs, offset + candidate) == SIG_EOCD) {
+                        return candidate;
+                    }
+                    matches &= ~(1L << bit);
+                }
+                pos -= 8;
+            } else {
+                if (getInt(bufs, offset + pos) == SIG_EOCD) {
+                    return pos;
+                }
+                pos--;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get a mask which has the high bit set in each byte of {@code word} which is equal to {@code b}.
+     *
+     * @param word the word to search
+     * @param b the byte to search for
+     * @return the match mask
+     */
+    static long findBytes(long word, byte b) {
+        final long x = word ^ (b & 0xffL) * 0x0101_0101_0101_0101L;
+        return ~((x & 0x7f7f_7f7f_7f7f_7f7fL) + 0x7f7f_7f7f_7f7f_7f7fL | x | 0x7f7f_7f7f_7f7f_7f7fL);
     }
 
     private static String getNameOfEntry(ByteBuffer[] bufs, long cde) {
@@ -328,12 +849,70 @@ public final class Archive implements Closeable {
         return hc;
     }
 
+    /**
+     * Get the hash code of the name of an entry, which is equal to the hash code of the name as a string.
+     *
+     * @param entryHandle the entry handle
+     * @return the hash code
+     */
+    int getEntryNameHashCode(long entryHandle) {
+        return getHashCodeOfEntry(bufs, offset + entryHandle);
+    }
+
+    /**
+     * Get the handles of the versioned entries of a multi-release JAR which are selected in place of their
+     * unversioned names.
+     *
+     * @return the entry handles, which are empty if there are none (not {@code null})
+     */
+    long[] getVersionedEntryHandles() {
+        final Index versionIndex = this.versionIndex;
+        if (versionIndex == null) {
+            return new long[0];
+        }
+        final int size = versionIndex.size();
+        final long[] handles = new long[size];
+        int cnt = 0;
+        for (int i = 0; i < size; i ++) {
+            final long entryHandle = versionIndex.get(i);
+            if (entryHandle != -1) {
+                handles[cnt ++] = entryHandle;
+            }
+        }
+        return Arrays.copyOf(handles, cnt);
+    }
+
+    /**
+     * Determine whether a versioned entry is selected in place of the given entry when its name is looked up.
+     *
+     * @param entryHandle the entry handle
+     * @return {@code true} if the entry is hidden by a versioned entry, {@code false} otherwise
+     */
+    boolean isVersionOverridden(long entryHandle) {
+        final Index versionIndex = this.versionIndex;
+        if (versionIndex == null) {
+            return false;
+        }
+        final int hashCode = getEntryNameHashCode(entryHandle);
+        String name = null;
+        for (int i = versionIndex.first(hashCode); i != -1; i = versionIndex.next(hashCode, i)) {
+            final long versioned = versionIndex.get(i);
+            if (name == null) {
+                name = getEntryName(entryHandle);
+            }
+            if (entryNameEquals(versioned, getVersionPrefixLength(versioned), name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public long getFirstEntryHandle() {
         return cd;
     }
 
     public long getNextEntryHandle(long entryHandle) {
-        final long next = entryHandle + CDE_END + getUnsignedShort(bufs, offset + entryHandle + CDE_FILE_NAME_LENGTH) + getUnsignedShort(bufs, offset + entryHandle + CDE_EXTRA_LENGTH);
+        final long next = nextEntry(bufs, offset, entryHandle);
         if (next >= length || getInt(bufs, offset + next + CDE_SIGNATURE) != SIG_CDE) {
             return -1;
         }
@@ -341,85 +920,484 @@ public final class Archive implements Closeable {
     }
 
     public long getEntryHandle(String fileName) {
-        final int mask = index.getMask();
-        final int base = fileName.hashCode();
-        long entryHandle;
-        for (int i = 0; i < mask; i ++) {
-            entryHandle = index.get(base + i & mask);
-            if (entryHandle == -1) {
-                return -1;
+        return getEntryHandle(fileName, fileName.hashCode());
+    }
+
+    /**
+     * Get the handle of the entry with the given name.
+     *
+     * @param fileName the entry name (must not be {@code null})
+     * @return the entry handle, or -1 if there is no such entry
+     */
+    public long getEntryHandle(CharSequence fileName) {
+        if (fileName instanceof String) {
+            return getEntryHandle((String) fileName);
+        }
+        int hc = 0;
+        final int length = fileName.length();
+        for (int i = 0; i < length; i ++) {
+            hc = hc * 31 + fileName.charAt(i);
+        }
+        return getEntryHandle(fileName, hc);
+    }
+
+    private long getEntryHandle(CharSequence fileName, int hashCode) {
+        return getEntryHandle(hashCode, (entryHandle, skip) -> entryNameEquals(entryHandle, skip, fileName));
+    }
+
+    /**
+     * A comparison of the names of candidate entries with a name which is being looked up.
+     */
+    private interface EntryNameMatcher {
+        /**
+         * Determine whether the name of the given entry, without its first {@code skip} bytes, is the name.
+         */
+        boolean matches(long entryHandle, int skip);
+    }
+
+    private long getEntryHandle(final int hashCode, final EntryNameMatcher matcher) {
+        return lookup(hashCode, matcher, metrics);
+    }
+
+    /**
+     * Find the entry with a given name, preferring the applicable versioned entry of a multi-release JAR.
+     *
+     * @param hashCode the hash code of the name
+     * @param matcher the comparison of candidate entry names with the name
+     * @param metrics the metrics to record the lookup to, or {@code null} to not record it
+     * @return the entry handle, or -1 if there is no such entry
+     */
+    private long lookup(final int hashCode, final EntryNameMatcher matcher, final ArchiveMetrics metrics) {
+        final long start = metrics == null ? 0 : System.nanoTime();
+        int probes = 0;
+        final Index versionIndex = this.versionIndex;
+        if (versionIndex != null) {
+            for (int i = versionIndex.first(hashCode); i != -1; i = versionIndex.next(hashCode, i)) {
+                final long entryHandle = versionIndex.get(i);
+                probes ++;
+                if (matcher.matches(entryHandle, getVersionPrefixLength(entryHandle))) {
+                    return lookedUp(entryHandle, probes, start, metrics);
+                }
             }
-            if (entryNameEquals(entryHandle, fileName)) {
-                return entryHandle;
+        }
+        final Index index = this.index;
+        for (int i = index.first(hashCode); i != -1; i = index.next(hashCode, i)) {
+            final long entryHandle = index.get(i);
+            probes ++;
+            if (matcher.matches(entryHandle, 0)) {
+                return lookedUp(entryHandle, probes, start, metrics);
             }
         }
-        return -1;
+        return lookedUp(-1, probes, start, metrics);
+    }
+
+    private static long lookedUp(final long entryHandle, final int probes, final long start, final ArchiveMetrics metrics) {
+        if (metrics != null) {
+            metrics.recordLookup(entryHandle != -1, probes, System.nanoTime() - start);
+        }
+        return entryHandle;
+    }
+
+    /**
+     * Get the handle of the entry with the given UTF-8 encoded name.
+     *
+     * @param utf8Name the encoded entry name (must not be {@code null})
+     * @return the entry handle, or -1 if there is no such entry
+     */
+    public long getEntryHandle(byte[] utf8Name) {
+        return getEntryHandle(utf8Name, 0, utf8Name.length);
+    }
+
+    /**
+     * Get the handle of the entry with the given UTF-8 encoded name.
+     *
+     * @param utf8Name the array holding the encoded entry name (must not be {@code null})
+     * @param offs the offset of the name in the array
+     * @param len the length of the name
+     * @return the entry handle, or -1 if there is no such entry
+     */
+    public long getEntryHandle(byte[] utf8Name, int offs, int len) {
+        Assert.checkArrayBounds(utf8Name, offs, len);
+        final int hc = Utf8.hashCode(utf8Name, offs, len);
+        return getEntryHandle(hc, (entryHandle, skip) -> entryNameEquals(bufs, offset, entryHandle, skip, utf8Name, offs, len));
+    }
+
+    /**
+     * Get the handle of the entry with the given UTF-8 encoded name.  The name is read from the remaining bytes of
+     * the buffer; the buffer position is not changed.
+     *
+     * @param utf8Name the buffer holding the encoded entry name (must not be {@code null})
+     * @return the entry handle, or -1 if there is no such entry
+     */
+    public long getEntryHandle(ByteBuffer utf8Name) {
+        if (utf8Name.hasArray()) {
+            return getEntryHandle(utf8Name.array(), utf8Name.arrayOffset() + utf8Name.position(), utf8Name.remaining());
+        }
+        final int hc = Utf8.hashCode(utf8Name, utf8Name.position(), utf8Name.limit());
+        return getEntryHandle(hc, (entryHandle, skip) -> entryNameEquals(entryHandle, skip, utf8Name));
     }
 
     public boolean entryNameEquals(final long entryHandle, final String fileName) {
-        long name = entryHandle + CDE_END;
-        int nameLen = getUnsignedShort(bufs, offset + entryHandle + CDE_FILE_NAME_LENGTH);
-        boolean utf8 = (getUnsignedShort(bufs, offset + entryHandle + CDE_GP_BITS) & GP_UTF_8) != 0;
+        return entryNameEquals(entryHandle, (CharSequence) fileName);
+    }
+
+    /**
+     * Determine whether the name of the given entry is equal to the given name.
+     *
+     * @param entryHandle the entry handle
+     * @param fileName the name to compare (must not be {@code null})
+     * @return {@code true} if the names are equal, {@code false} otherwise
+     */
+    public boolean entryNameEquals(final long entryHandle, final CharSequence fileName) {
+        return entryNameEquals(entryHandle, 0, fileName);
+    }
+
+    /**
+     * Determine whether the name of the given entry, without its first {@code skip} bytes, is equal to the given
+     * name.  The skipped bytes must be ASCII.
+     */
+    boolean entryNameEquals(final long entryHandle, final int skip, final CharSequence fileName) {
+        final long name = offset + entryHandle + CDE_END + skip;
+        final int nameLen = getUnsignedShort(bufs, offset + entryHandle + CDE_FILE_NAME_LENGTH) - skip;
+        final boolean utf8 = (getUnsignedShort(bufs, offset + entryHandle + CDE_GP_BITS) & GP_UTF_8) != 0;
         final int length = fileName.length();
         if (utf8) {
-            long i;
-            int j;
-            for (i = 0, j = 0; i < nameLen && j < length; i += Utf8.getByteCount(getUnsignedByte(bufs, offset + name + i)), j = fileName.offsetByCodePoints(j, 1)) {
-                if (Utf8.codePointAt(bufs, offset + name + i) != fileName.codePointAt(j)) {
+            // each UTF-16 unit takes between one and three bytes
+            if (length > nameLen || nameLen > 3 * length) {
+                return false;
+            }
+            int i = 0, j = 0;
+            while (i < nameLen && j < length) {
+                final int a = getUnsignedByte(bufs, name + i);
+                if (a < 0x80) {
+                    // ASCII fast path
+                    if (a != fileName.charAt(j)) {
+                        return false;
+                    }
+                    i ++;
+                    j ++;
+                } else {
+                    final int cp = Character.codePointAt(fileName, j);
+                    if (Utf8.codePointAt(bufs, name + i) != cp) {
+                        return false;
+                    }
+                    i += Utf8.getByteCount(a);
+                    j += Character.charCount(cp);
+                }
+            }
+            return i == nameLen && j == length;
+        } else {
+            if (length != nameLen) {
+                return false;
+            }
+            for (int i = 0; i < nameLen; i ++) {
+                if (Cp437.charFor(getUnsignedByte(bufs, name + i)) != fileName.charAt(i)) {
                     return false;
                 }
             }
-            return i == nameLen && j == length;
-        } else {
-            int i, j;
-            for (i = 0, j = 0; i < nameLen && j < length; i++, j = fileName.offsetByCodePoints(j, 1)) {
-                if (Cp437.charFor(getUnsignedByte(bufs, offset + i + entryHandle + CDE_END)) != fileName.codePointAt(j)) {
-                    return false;
+            return true;
+        }
+    }
+
+    private static boolean entryNameEquals(final ByteBuffer[] bufs, final long offset, final long entryHandle, final int skip, final byte[] bytes, final int offs, final int len) {
+        final long name = offset + entryHandle + CDE_END + skip;
+        final int nameLen = getUnsignedShort(bufs, offset + entryHandle + CDE_FILE_NAME_LENGTH) - skip;
+        final boolean utf8 = (getUnsignedShort(bufs, offset + entryHandle + CDE_GP_BITS) & GP_UTF_8) != 0;
+        if (utf8 || Cp437.isAscii(bytes, offs, len)) {
+            // compare the raw bytes directly
+            if (nameLen != len) {
+                return false;
+            }
+            int i = 0;
+            for (; i + 8 <= len; i += 8) {
+                if (getLong(bufs, name + i) != (long) LONG_LE.get(bytes, offs + i)) {
+                    return false;
+                }
+            }
+            for (; i < len; i ++) {
+                if (getByte(bufs, name + i) != bytes[offs + i]) {
+                    return false;
+                }
+            }
+            return true;
+        } else {
+            int i = 0, j = 0;
+            while (i < nameLen && j < len) {
+                final int a = bytes[offs + j] & 0xff;
+                final int n = Utf8.getByteCount(a);
+                final int cp = Utf8.codePoint(a, n, bytes, offs + j, offs + len);
+                if (Cp437.charFor(getUnsignedByte(bufs, name + i)) != cp) {
+                    return false;
+                }
+                i ++;
+                j += n;
+            }
+            return i == nameLen && j == len;
+        }
+    }
+
+    private boolean entryNameEquals(final long entryHandle, final int skip, final ByteBuffer bytes) {
+        final long name = offset + entryHandle + CDE_END + skip;
+        final int nameLen = getUnsignedShort(bufs, offset + entryHandle + CDE_FILE_NAME_LENGTH) - skip;
+        final boolean utf8 = (getUnsignedShort(bufs, offset + entryHandle + CDE_GP_BITS) & GP_UTF_8) != 0;
+        final int pos = bytes.position();
+        final int len = bytes.remaining();
+        if (utf8 || Cp437.isAscii(bytes, pos, pos + len)) {
+            // compare the raw bytes directly
+            if (nameLen != len) {
+                return false;
+            }
+            final boolean le = bytes.order() == ByteOrder.LITTLE_ENDIAN;
+            int i = 0;
+            for (; i + 8 <= len; i += 8) {
+                final long val = bytes.getLong(pos + i);
+                if (getLong(bufs, name + i) != (le ? val : Long.reverseBytes(val))) {
+                    return false;
+                }
+            }
+            for (; i < len; i ++) {
+                if (getByte(bufs, name + i) != bytes.get(pos + i)) {
+                    return false;
+                }
+            }
+            return true;
+        } else {
+            int i = 0, j = 0;
+            while (i < nameLen && j < len) {
+                final int a = bytes.get(pos + j) & 0xff;
+                final int n = Utf8.getByteCount(a);
+                final int cp = Utf8.codePoint(a, n, bytes, pos + j, pos + len);
+                if (Cp437.charFor(getUnsignedByte(bufs, name + i)) != cp) {
+                    return false;
+                }
+                i ++;
+                j += n;
+            }
+            return i == nameLen && j == len;
+        }
+    }
+
+    /**
+     * Get the handles of the entries which are immediate children of the given directory, in name order.  Only
+     * entries which are actually present in the archive are returned; directories which are implied by the names
+     * of other entries do not have a handle.
+     * <p>
+     * The first call to this method or to {@link #entriesWithPrefix(CharSequence)} builds a secondary index of
+     * the archive entries.  After that, the cost of a call is proportional to the size of its result.
+     *
+     * @param directory the directory name, with or without a trailing {@code /}, or an empty string for the
+     *      root directory (must not be {@code null})
+     * @return the entry handles (not {@code null})
+     * @throws IOException if the archive directory is corrupt
+     */
+    public long[] listDirectory(String directory) throws IOException {
+        Assert.checkNotNullParam("directory", directory);
+        return getPrefixIndex().listDirectory(directory);
+    }
+
+    /**
+     * Get the handles of all entries whose names begin with the given prefix, in name order.
+     * <p>
+     * The first call to this method or to {@link #listDirectory(String)} builds a secondary index of the archive
+     * entries.  After that, the cost of a call is proportional to the size of its result (plus a binary search).
+     *
+     * @param prefix the name prefix (must not be {@code null})
+     * @return the entry handles (not {@code null})
+     * @throws IOException if the archive directory is corrupt
+     */
+    public long[] entriesWithPrefix(CharSequence prefix) throws IOException {
+        Assert.checkNotNullParam("prefix", prefix);
+        return getPrefixIndex().entriesWithPrefix(prefix.toString());
+    }
+
+    /**
+     * Get a stream of the handles of all entries, in directory order.  The entry offsets are computed once and
+     * retained, so the stream splits evenly when it is used in parallel.
+     *
+     * @return the stream of entry handles (not {@code null})
+     * @throws IOException if the archive directory is corrupt
+     */
+    public LongStream entryHandles() throws IOException {
+        final long[] handles = getEntryHandles();
+        return StreamSupport.longStream(Spliterators.spliterator(handles, 0, handles.length, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+    }
+
+    /**
+     * Visit every entry in directory order, without decoding entry names.
+     *
+     * @param visitor the entry visitor (must not be {@code null})
+     * @throws IOException if the archive directory is corrupt, or if the visitor throws an exception
+     */
+    public void forEachEntry(EntryVisitor visitor) throws IOException {
+        Assert.checkNotNullParam("visitor", visitor);
+        long cde = cd;
+        for (int i = 0; i < entries; i ++) {
+            if (cde + CDE_END > length || getInt(bufs, offset + cde + CDE_SIGNATURE) != SIG_CDE) {
+                throw new IOException("Archive appears to be corrupted");
+            }
+            final ByteBuffer name = bufferOf(bufs, offset + cde + CDE_END, getUnsignedShort(bufs, offset + cde + CDE_FILE_NAME_LENGTH)).asReadOnlyBuffer();
+            visitor.visit(cde, name, getCompressionMethod(cde), getCompressedSize(cde), getUncompressedSize(cde));
+            cde = nextEntry(bufs, offset, cde);
+        }
+    }
+
+    long[] getEntryHandles() throws IOException {
+        long[] entryHandles = this.entryHandles;
+        if (entryHandles == null) {
+            synchronized (this) {
+                entryHandles = this.entryHandles;
+                if (entryHandles == null) {
+                    this.entryHandles = entryHandles = getEntryOffsets(bufs, offset, cd, entries);
+                }
+            }
+        }
+        return entryHandles;
+    }
+
+    private PrefixIndex getPrefixIndex() throws IOException {
+        PrefixIndex prefixIndex = this.prefixIndex;
+        if (prefixIndex == null) {
+            synchronized (this) {
+                prefixIndex = this.prefixIndex;
+                if (prefixIndex == null) {
+                    final long[] handles = getEntryHandles();
+                    final String[] names = new String[handles.length];
+                    for (int i = 0; i < handles.length; i ++) {
+                        names[i] = getEntryName(handles[i]);
+                    }
+                    this.prefixIndex = prefixIndex = new PrefixIndex(names, handles);
+                }
+            }
+        }
+        return prefixIndex;
+    }
+
+    private long getLocalHeader(long entryHandle) {
+        return getLocalHeader(bufs, offset, entryHandle);
+    }
+
+    private static long getLocalHeader(final ByteBuffer[] bufs, final long offset, final long entryHandle) {
+        long lh = getUnsignedInt(bufs, offset + entryHandle + CDE_LOCAL_HEADER_OFFSET);
+        if (lh == 0xffff_ffffL) {
+            long zip64 = getExtraRecord(bufs, offset, entryHandle, EXT_ID_ZIP64);
+            if (zip64 != -1) {
+                lh = getLong(bufs, offset + zip64 + ZIP64_LOCAL_HEADER_OFFSET);
+            }
+        }
+        return lh;
+    }
+
+    public String getEntryName(long entryHandle) {
+        return getNameOfEntry(bufs, offset + entryHandle);
+    }
+
+    public ByteBuffer getEntryContents(long entryHandle) throws IOException {
+        long size = getUncompressedSize(entryHandle);
+        long compSize = getCompressedSize(entryHandle);
+        if (size > 0x1000_0000 || compSize > 0x1000_0000) {
+            throw new IOException("Entry is too large to read into RAM");
+        }
+        final long offset = getEntryDataOffset(entryHandle);
+        final int method = getCompressionMethod(entryHandle);
+        switch (method) {
+            case METHOD_STORED: {
+                final ByteBuffer slice = sliceOf(bufs, this.offset + offset, (int) size);
+                if (slice == null) {
+                    return ByteBuffer.wrap(getBytes(bufs, this.offset + offset, (int) size));
+                }
+                if (metrics != null) {
+                    metrics.recordMapped(size);
+                }
+                return slice;
+            }
+            case METHOD_DEFLATE: {
+                final ContentCache contentCache = this.contentCache;
+                if (contentCache != null) {
+                    final ByteBuffer cached = contentCache.get(entryHandle);
+                    if (cached != null) {
+                        return cached;
+                    }
+                }
+                final InflaterPool pool = options.getInflaterPool();
+                final Inflater inflater = pool.acquire();
+                try {
+                    final ByteBuffer contents = JDKSpecific.inflate(inflater, bufs, this.offset + offset, (int) compSize, (int) size);
+                    recordInflated(size);
+                    return contentCache == null ? contents : contentCache.put(entryHandle, contents);
+                } catch (DataFormatException e) {
+                    throw new IOException(e);
+                } finally {
+                    pool.release(inflater);
                 }
             }
-            return i == nameLen && j == length;
-        }
-    }
-
-    private long getLocalHeader(long entryHandle) {
-        long lh = getUnsignedInt(bufs, offset + entryHandle + CDE_LOCAL_HEADER_OFFSET);
-        if (lh == 0xffff_ffffL) {
-            long zip64 = getExtraRecord(entryHandle, EXT_ID_ZIP64);
-            if (zip64 != -1) {
-                lh = getLong(bufs, offset + zip64 + ZIP64_LOCAL_HEADER_OFFSET);
+            default: {
+                throw new IOException("Unsupported compression scheme");
             }
         }
-        return lh;
     }
 
-    public String getEntryName(long entryHandle) {
-        return getNameOfEntry(bufs, entryHandle);
+    private void recordInflated(final long size) {
+        final ArchiveMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.recordInflation();
+            metrics.recordInflated(size);
+        }
     }
 
-    public ByteBuffer getEntryContents(long entryHandle) throws IOException {
+    /**
+     * Read the contents of an entry into the given buffer, starting at its current position.  The buffer may be
+     * a heap or direct buffer, and may be reused between calls to avoid allocating a buffer for each entry.
+     *
+     * @param entryHandle the entry handle
+     * @param dest the destination buffer, which must have at least {@link #getUncompressedSize(long)} bytes
+     *      remaining (must not be {@code null})
+     * @return the number of bytes read
+     * @throws BufferOverflowException if the buffer does not have enough space for the entry contents
+     * @throws IOException if the entry could not be read
+     */
+    public int getEntryContents(long entryHandle, ByteBuffer dest) throws IOException {
+        Assert.checkNotNullParam("dest", dest);
         long size = getUncompressedSize(entryHandle);
         long compSize = getCompressedSize(entryHandle);
         if (size > 0x1000_0000 || compSize > 0x1000_0000) {
             throw new IOException("Entry is too large to read into RAM");
         }
-        long localHeader = getLocalHeader(entryHandle);
-        if ((getUnsignedShort(bufs, offset + localHeader + LH_GP_BITS) & (GP_ENCRYPTED | GP_STRONG_ENCRYPTION)) != 0) {
-            throw new IOException("Cannot read encrypted entries");
+        if (dest.remaining() < size) {
+            throw new BufferOverflowException();
         }
-        final long offset = getDataOffset(localHeader);
+        final long offset = getEntryDataOffset(entryHandle);
         final int method = getCompressionMethod(entryHandle);
         switch (method) {
             case METHOD_STORED: {
-                return bufferOf(bufs, this.offset + offset, (int) size);
+                copyBytes(bufs, this.offset + offset, (int) size, dest);
+                return (int) size;
             }
             case METHOD_DEFLATE: {
-                final Inflater inflater = new Inflater(true);
+                final ContentCache contentCache = this.contentCache;
+                if (contentCache != null) {
+                    final ByteBuffer cached = contentCache.get(entryHandle);
+                    if (cached != null) {
+                        final int cnt = cached.remaining();
+                        dest.put(cached);
+                        return cnt;
+                    }
+                }
+                final InflaterPool pool = options.getInflaterPool();
+                final Inflater inflater = pool.acquire();
                 try {
-                    return JDKSpecific.inflate(inflater, bufs, this.offset + offset, (int) compSize, (int) size);
+                    final int limit = dest.limit();
+                    dest.limit(dest.position() + (int) size);
+                    try {
+                        final int cnt = JDKSpecific.inflate(inflater, bufs, this.offset + offset, (int) compSize, dest);
+                        recordInflated(cnt);
+                        return cnt;
+                    } finally {
+                        dest.limit(limit);
+                    }
                 } catch (DataFormatException e) {
                     throw new IOException(e);
                 } finally {
-                    inflater.end();
+                    pool.release(inflater);
                 }
             }
             default: {
@@ -428,24 +1406,135 @@ public final class Archive implements Closeable {
         }
     }
 
+    private long getEntryDataOffset(final long entryHandle) throws IOException {
+        return getEntryDataOffset(bufs, offset, entryHandle);
+    }
+
+    private static long getEntryDataOffset(final ByteBuffer[] bufs, final long offset, final long entryHandle) throws IOException {
+        long localHeader = getLocalHeader(bufs, offset, entryHandle);
+        if ((getUnsignedShort(bufs, offset + localHeader + LH_GP_BITS) & (GP_ENCRYPTED | GP_STRONG_ENCRYPTION)) != 0) {
+            throw new IOException("Cannot read encrypted entries");
+        }
+        return getDataOffset(bufs, offset, localHeader);
+    }
+
     private long getDataOffset(final long localHeader) {
+        return getDataOffset(bufs, offset, localHeader);
+    }
+
+    private static long getDataOffset(final ByteBuffer[] bufs, final long offset, final long localHeader) {
         return localHeader + LH_END + getUnsignedShort(bufs, offset + localHeader + LH_FILE_NAME_LENGTH) + getUnsignedShort(bufs, offset + localHeader + LH_EXTRA_LENGTH);
     }
 
     public InputStream getEntryStream(final long entryHandle) throws IOException {
-        long size = getCompressedSize(entryHandle);
-        long localHeader = getLocalHeader(entryHandle);
-        if ((getUnsignedShort(bufs, offset + localHeader + LH_GP_BITS) & (GP_ENCRYPTED | GP_STRONG_ENCRYPTION)) != 0) {
-            throw new IOException("Cannot read encrypted entries");
+        return getEntryStream(bufs, offset, entryHandle, options.getInflaterPool(), metrics);
+    }
+
+    private static InputStream getEntryStream(final ByteBuffer[] bufs, final long offset, final long entryHandle, final InflaterPool inflaterPool, final ArchiveMetrics metrics) throws IOException {
+        long size = getCompressedSize(bufs, offset, entryHandle);
+        final long data = offset + getEntryDataOffset(bufs, offset, entryHandle);
+        final int method = getUnsignedShort(bufs, offset + entryHandle + CDE_COMP_METHOD);
+        switch (method) {
+            case METHOD_STORED: {
+                return new ByteBufferInputStream(bufs, data, size);
+            }
+            case METHOD_DEFLATE: {
+                // inflate directly from the archive buffers into the caller's array, and skip without inflating
+                // until the next read
+                return Channels.newInputStream(new InflatingEntryChannel(bufs, data, size, getUncompressedSize(bufs, offset, entryHandle), inflaterPool, metrics));
+            }
+            default: {
+                throw new IOException("Unsupported compression scheme");
+            }
         }
-        final long offset = getDataOffset(localHeader);
+    }
+
+    /**
+     * Get a read-only channel over the contents of an entry.  Stored entries are read directly from the archive
+     * buffers; deflated entries are inflated as they are read, using an inflater from the archive's pool which is
+     * returned when the channel is closed.
+     *
+     * @param entryHandle the entry handle
+     * @return the channel (not {@code null})
+     * @throws IOException if the entry could not be read
+     */
+    public SeekableByteChannel getEntryChannel(long entryHandle) throws IOException {
+        final long offset = getEntryDataOffset(entryHandle);
+        final int method = getCompressionMethod(entryHandle);
+        switch (method) {
+            case METHOD_STORED: {
+                return new StoredEntryChannel(bufs, this.offset + offset, getUncompressedSize(entryHandle));
+            }
+            case METHOD_DEFLATE: {
+                return new InflatingEntryChannel(bufs, this.offset + offset, getCompressedSize(entryHandle), getUncompressedSize(entryHandle), options.getInflaterPool(), metrics);
+            }
+            default: {
+                throw new IOException("Unsupported compression scheme");
+            }
+        }
+    }
+
+    /**
+     * Get a sequential reader for the contents of an entry.  Unlike {@link #getEntryContents(long)}, the reader
+     * may be used for entries of any size, since the contents are inflated in chunks as they are read.
+     *
+     * @param entryHandle the entry handle
+     * @return the reader (not {@code null})
+     * @throws IOException if the entry could not be read
+     */
+    public EntryReader getEntryReader(long entryHandle) throws IOException {
+        final long offset = getEntryDataOffset(entryHandle);
+        final int method = getCompressionMethod(entryHandle);
+        switch (method) {
+            case METHOD_STORED: {
+                return new EntryReader(bufs, this.offset + offset, getUncompressedSize(entryHandle), null);
+            }
+            case METHOD_DEFLATE: {
+                final long size = getUncompressedSize(entryHandle);
+                return new EntryReader(bufs, this.offset + offset, size, new InflatingEntryChannel(bufs, this.offset + offset, getCompressedSize(entryHandle), size, options.getInflaterPool(), metrics));
+            }
+            default: {
+                throw new IOException("Unsupported compression scheme");
+            }
+        }
+    }
+
+    /**
+     * Write the contents of an entry to the given channel.  Stored entries are written directly from slices of the
+     * archive buffers without any intermediate copy; deflated entries are inflated through a pooled inflater and
+     * a single reused buffer.
+     *
+     * @param entryHandle the entry handle
+     * @param channel the destination channel (must not be {@code null})
+     * @return the number of bytes written
+     * @throws IOException if the entry could not be read or the channel could not be written
+     */
+    public long transferEntryTo(long entryHandle, WritableByteChannel channel) throws IOException {
+        Assert.checkNotNullParam("channel", channel);
+        final long offset = getEntryDataOffset(entryHandle);
         final int method = getCompressionMethod(entryHandle);
         switch (method) {
             case METHOD_STORED: {
-                return new ByteBufferInputStream(bufs, this.offset + offset, size);
+                final long size = getUncompressedSize(entryHandle);
+                transferBytes(bufs, this.offset + offset, size, channel);
+                if (metrics != null) {
+                    metrics.recordMapped(size);
+                }
+                return size;
             }
             case METHOD_DEFLATE: {
-                return new InflaterInputStream(new ByteBufferInputStream(bufs, this.offset + offset, size));
+                long total = 0;
+                try (SeekableByteChannel in = getEntryChannel(entryHandle)) {
+                    final ByteBuffer buf = ByteBuffer.allocate(TRANSFER_BUFFER_SIZE);
+                    while (in.read(buf) != -1) {
+                        buf.flip();
+                        while (buf.hasRemaining()) {
+                            total += channel.write(buf);
+                        }
+                        buf.clear();
+                    }
+                }
+                return total;
             }
             default: {
                 throw new IOException("Unsupported compression scheme");
@@ -453,6 +1542,148 @@ public final class Archive implements Closeable {
         }
     }
 
+    /**
+     * Transfer the raw (possibly compressed) data of an entry to the given channel.
+     *
+     * @param entryHandle the entry handle
+     * @param channel the destination channel
+     * @return the number of bytes transferred
+     * @throws IOException if the entry could not be read or the channel could not be written
+     */
+    long transferRawEntryTo(long entryHandle, WritableByteChannel channel) throws IOException {
+        final long size = getCompressedSize(entryHandle);
+        transferBytes(bufs, this.offset + getEntryDataOffset(entryHandle), size, channel);
+        return size;
+    }
+
+    static void transferBytes(final ByteBuffer[] bufs, long idx, final long size, final WritableByteChannel channel) throws IOException {
+        long rem = size;
+        while (rem > 0) {
+            final int bo = bufOffs(idx);
+            final ByteBuffer buf = bufs[bufIdx(idx)].duplicate();
+            buf.position(bo);
+            final int cnt = (int) min(rem, buf.remaining());
+            buf.limit(bo + cnt);
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+            rem -= cnt;
+            idx += cnt;
+        }
+    }
+
+    /**
+     * Get the CRC-32 of the uncompressed contents of an entry, as recorded in the central directory.
+     *
+     * @param entryHandle the entry handle
+     * @return the CRC-32 value
+     */
+    public int getEntryCrc32(long entryHandle) {
+        return getInt(bufs, offset + entryHandle + CDE_CRC_32);
+    }
+
+    /**
+     * Verify the contents of an entry against the CRC-32 and uncompressed size recorded in the central directory.
+     * The contents are checked directly from the archive buffers, inflating them if needed, without reading the
+     * whole entry into memory.
+     *
+     * @param entryHandle the entry handle
+     * @return {@code true} if the contents match, {@code false} otherwise
+     * @throws IOException if the entry could not be read
+     */
+    public boolean verifyEntry(long entryHandle) throws IOException {
+        return verifyEntry(entryHandle, new CRC32(), null);
+    }
+
+    /**
+     * Verify the contents of every entry against the CRC-32 and uncompressed size recorded in the central directory.
+     * Entries are grouped into batches of similar compressed size, and the batches are verified concurrently
+     * using the given executor.  Passing {@code Runnable::run} verifies all entries in the calling thread.
+     *
+     * @param executor the executor on which to run the verification (must not be {@code null})
+     * @throws IOException if any entry could not be read or does not match, with each failure attached as a
+     *      suppressed exception
+     */
+    public void verifyAll(Executor executor) throws IOException {
+        Assert.checkNotNullParam("executor", executor);
+        final long[] handles = getEntryHandles();
+        final Queue<IOException> problems = new ConcurrentLinkedQueue<>();
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        int start = 0;
+        long batchSize = 0;
+        for (int i = 0; i < handles.length; i ++) {
+            batchSize += getCompressedSize(handles[i]);
+            if (batchSize >= VERIFY_BATCH_SIZE || i == handles.length - 1) {
+                final int from = start, to = i + 1;
+                futures.add(CompletableFuture.runAsync(() -> verifyEntries(handles, from, to, problems), executor));
+                start = to;
+                batchSize = 0;
+            }
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+        if (! problems.isEmpty()) {
+            final IOException ex = new IOException("Verification failed for " + problems.size() + " archive entries");
+            for (IOException problem : problems) {
+                ex.addSuppressed(problem);
+            }
+            throw ex;
+        }
+    }
+
+    private void verifyEntries(final long[] handles, final int from, final int to, final Queue<IOException> problems) {
+        final CRC32 crc32 = new CRC32();
+        final ByteBuffer buf = ByteBuffer.allocate(TRANSFER_BUFFER_SIZE);
+        for (int i = from; i < to; i ++) {
+            final long handle = handles[i];
+            try {
+                if (! verifyEntry(handle, crc32, buf)) {
+                    problems.add(new IOException("Entry \"" + getEntryName(handle) + "\" does not match its recorded CRC-32 or size"));
+                }
+            } catch (IOException | RuntimeException e) {
+                problems.add(new IOException("Entry \"" + getEntryName(handle) + "\" could not be verified", e));
+            }
+        }
+    }
+
+    private boolean verifyEntry(final long entryHandle, final CRC32 crc32, final ByteBuffer buf) throws IOException {
+        crc32.reset();
+        final long size = getUncompressedSize(entryHandle);
+        final int method = getCompressionMethod(entryHandle);
+        switch (method) {
+            case METHOD_STORED: {
+                final long idx = this.offset + getEntryDataOffset(entryHandle);
+                if (getCompressedSize(entryHandle) != size || idx + size > this.offset + length) {
+                    return false;
+                }
+                updateChecksum(crc32, bufs, idx, size);
+                break;
+            }
+            default: {
+                long total = 0;
+                try (SeekableByteChannel in = getEntryChannel(entryHandle)) {
+                    final ByteBuffer b = buf == null ? ByteBuffer.allocate(TRANSFER_BUFFER_SIZE) : buf;
+                    int res;
+                    while ((res = in.read(b.clear())) != -1) {
+                        total += res;
+                        crc32.update(b.flip());
+                    }
+                }
+                if (total != size) {
+                    return false;
+                }
+                break;
+            }
+        }
+        return (int) crc32.getValue() == getEntryCrc32(entryHandle);
+    }
+
     public Archive getNestedArchive(long entryHandle) throws IOException {
         long localHeader = getLocalHeader(entryHandle);
         if ((getUnsignedShort(bufs, this.offset + localHeader + LH_GP_BITS) & (GP_ENCRYPTED | GP_STRONG_ENCRYPTION)) != 0) {
@@ -461,30 +1692,83 @@ public final class Archive implements Closeable {
         final long offset = getDataOffset(localHeader);
         final int method = getCompressionMethod(entryHandle);
         if (method != METHOD_STORED) {
-            throw new IOException("Cannot open compressed nested archive");
+            if (inflatedNestedArchives == null) {
+                throw new IOException("Cannot open compressed nested archive");
+            }
+            return getInflatedNestedArchive(entryHandle);
+        }
+        if (metrics != null) {
+            metrics.recordNestedOpen();
         }
         long size = getUncompressedSize(entryHandle);
         if (size < Integer.MAX_VALUE) {
             final ByteBuffer slice = sliceOf(bufs, this.offset + offset, (int) size);
             if (slice != null) {
-                return Archive.open(slice);
+                return Archive.open(slice, options);
+            }
+        }
+        return Archive.open(bufs, this.offset + offset, size, options);
+    }
+
+    private Archive getInflatedNestedArchive(final long entryHandle) throws IOException {
+        final Map<Long, Archive> inflatedNestedArchives = this.inflatedNestedArchives;
+        Archive nested = inflatedNestedArchives.get(Long.valueOf(entryHandle));
+        if (nested != null) {
+            return nested;
+        }
+        // only inflate each nested archive once
+        synchronized (inflatedNestedArchives) {
+            if (closed) {
+                throw new IOException("Archive is closed");
+            }
+            nested = inflatedNestedArchives.get(Long.valueOf(entryHandle));
+            if (nested == null) {
+                nested = openInflated(entryHandle);
+                inflatedNestedArchives.put(Long.valueOf(entryHandle), nested);
+            }
+            return nested;
+        }
+    }
+
+    /**
+     * Inflate an entry into an anonymous temporary file and open it as an archive.  The file is deleted as soon
+     * as it is mapped, so the space is reclaimed when the mapping is.
+     */
+    private Archive openInflated(final long entryHandle) throws IOException {
+        if (metrics != null) {
+            metrics.recordNestedOpen();
+        }
+        final Path file = Files.createTempFile("nested", ".zip");
+        final ByteBuffer[] array;
+        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE)) {
+            final long size = transferEntryTo(entryHandle, fc);
+            if (size == 0) {
+                throw new IOException("Invalid archive");
             }
+            array = map(fc, size);
+        } finally {
+            Files.deleteIfExists(file);
         }
-        return Archive.open(bufs, this.offset + offset, size);
+        return open(array, options);
     }
 
     public boolean isCompressed(long entryHandle) {
         return getCompressionMethod(entryHandle) != METHOD_STORED;
     }
 
-    private int getCompressionMethod(final long entryHandle) {
+    public int getCompressionMethod(final long entryHandle) {
         return getUnsignedShort(bufs, offset + entryHandle + CDE_COMP_METHOD);
     }
 
     private long getExtraRecord(final long entryHandle, final int headerId) {
-        long extra = entryHandle + CDE_END + getUnsignedShort(bufs, offset + entryHandle + CDE_FILE_NAME_LENGTH) + getUnsignedShort(bufs, offset + entryHandle + CDE_COMMENT_LENGTH);
+        return getExtraRecord(bufs, offset, entryHandle, headerId);
+    }
+
+    private static long getExtraRecord(final ByteBuffer[] bufs, final long offset, final long entryHandle, final int headerId) {
+        long extra = entryHandle + CDE_END + getUnsignedShort(bufs, offset + entryHandle + CDE_FILE_NAME_LENGTH);
         int extraLen = getUnsignedShort(bufs, offset + entryHandle + CDE_EXTRA_LENGTH);
-        for (int i = 0; i < extraLen; i = i + getUnsignedShort(bufs, offset + extra + i + 2)) {
+        // each record has a two-byte ID and a two-byte data length
+        for (int i = 0; i + 4 <= extraLen; i = i + 4 + getUnsignedShort(bufs, offset + extra + i + 2)) {
             if (getUnsignedShort(bufs, offset + extra + i) == headerId) {
                 return extra + i + 4;
             }
@@ -493,9 +1777,13 @@ public final class Archive implements Closeable {
     }
 
     public long getUncompressedSize(long entryHandle) {
+        return getUncompressedSize(bufs, offset, entryHandle);
+    }
+
+    private static long getUncompressedSize(final ByteBuffer[] bufs, final long offset, final long entryHandle) {
         long size = getUnsignedInt(bufs, offset + entryHandle + CDE_UNCOMPRESSED_SIZE);
-        if (size == 0xffffffff) {
-            long zip64 = getExtraRecord(entryHandle, EXT_ID_ZIP64);
+        if (size == 0xffff_ffffL) {
+            long zip64 = getExtraRecord(bufs, offset, entryHandle, EXT_ID_ZIP64);
             if (zip64 != -1) {
                 size = getLong(bufs, offset + zip64 + ZIP64_UNCOMPRESSED_SIZE);
             }
@@ -504,9 +1792,13 @@ public final class Archive implements Closeable {
     }
 
     public long getCompressedSize(long entryHandle) {
+        return getCompressedSize(bufs, offset, entryHandle);
+    }
+
+    private static long getCompressedSize(final ByteBuffer[] bufs, final long offset, final long entryHandle) {
         long size = getUnsignedInt(bufs, offset + entryHandle + CDE_COMPRESSED_SIZE);
-        if (size == 0xffffffff) {
-            long zip64 = getExtraRecord(entryHandle, EXT_ID_ZIP64);
+        if (size == 0xffff_ffffL) {
+            long zip64 = getExtraRecord(bufs, offset, entryHandle, EXT_ID_ZIP64);
             if (zip64 != -1) {
                 size = getLong(bufs, offset + zip64 + ZIP64_COMPRESSED_SIZE);
             }
@@ -526,13 +1818,118 @@ public final class Archive implements Closeable {
         return dosTimeStamp(getUnsignedShort(bufs, offset + entryHandle + CDE_MOD_TIME), getUnsignedShort(bufs, offset + entryHandle + CDE_MOD_DATE));
     }
 
-    public void close() {
+    Index getIndex() {
+        return index;
+    }
+
+    /**
+     * Get the completion of the preloading of this archive.  If the archive is not preloaded, the completion is
+     * already complete.  Preloading is only an optimization, so a failed preload does not affect the archive.
+     *
+     * @return the preload completion (not {@code null})
+     * @see ArchiveOptions#withPreload(ArchiveOptions.Preload)
+     */
+    public CompletionStage<Void> getPreloadCompletion() {
+        return preload.minimalCompletionStage();
+    }
+
+    private static Executor createPreloadExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(PRELOAD_THREADS, PRELOAD_THREADS, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+            final Thread thread = new Thread(task, "Archive preload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private void startPreload() {
+        final ArchiveOptions.Preload mode = options.getPreload();
+        final List<String> names = options.getPreloadEntries();
+        if (mode == ArchiveOptions.Preload.NONE && names.isEmpty() || ! (bufs[0] instanceof MappedByteBuffer)) {
+            return;
+        }
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        preload = future;
+        final Executor executor = options.getPreloadExecutor();
+        try {
+            (executor == null ? PRELOAD_EXECUTOR : executor).execute(() -> {
+                try {
+                    preload(mode, names);
+                    future.complete(null);
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    private void preload(final ArchiveOptions.Preload mode, final List<String> names) throws IOException {
+        if (mode != ArchiveOptions.Preload.NONE) {
+            // the directory and end records
+            load(offset + cd, length - cd);
+        }
+        for (String name : names) {
+            // warming up is not an application lookup, so it is not recorded
+            final long entryHandle = lookup(name.hashCode(), (handle, skip) -> entryNameEquals(handle, skip, name), null);
+            if (entryHandle != -1) {
+                final long localHeader = getLocalHeader(entryHandle);
+                final long end = getEntryDataOffset(entryHandle) + getCompressedSize(entryHandle);
+                load(offset + localHeader, min(end, length) - localHeader);
+            }
+        }
+        if (mode == ArchiveOptions.Preload.FULL) {
+            load(offset, cd);
+        }
+    }
+
+    private void load(long idx, final long size) {
+        long rem = size;
+        while (rem > 0) {
+            final int bo = bufOffs(idx);
+            final ByteBuffer buf = bufs[bufIdx(idx)];
+            final int cnt = (int) min(rem, buf.capacity() - bo);
+            ((MappedByteBuffer) buf).slice(bo, cnt).load();
+            rem -= cnt;
+            idx += cnt;
+        }
+    }
+
+    /**
+     * Get the cache of inflated entry contents for this archive.
+     *
+     * @return the content cache, or {@code null} if contents are not cached
+     * @see ArchiveOptions#withContentCache(long, ContentCache.Retention)
+     */
+    public ContentCache getContentCache() {
+        return contentCache;
+    }
 
+    /**
+     * Close this archive.  Any nested archives which were inflated into temporary files by this archive are
+     * closed and released; the mapped memory is reclaimed once the buffers are no longer referenced.
+     */
+    public void close() {
+        if (contentCache != null) {
+            contentCache.clear();
+        }
+        final Map<Long, Archive> inflatedNestedArchives = this.inflatedNestedArchives;
+        if (inflatedNestedArchives != null) {
+            synchronized (inflatedNestedArchives) {
+                closed = true;
+                for (Archive nested : inflatedNestedArchives.values()) {
+                    nested.close();
+                }
+                inflatedNestedArchives.clear();
+            }
+        }
     }
 
     private static long dosTimeStamp(int modTime, int modDate) {
         int year = 1980 + (modDate >> 9);
-        int month = 1 + ((modDate >> 5) & 0b1111);
+        int month = (modDate >> 5) & 0b1111;
         int day = modDate & 0b11111;
         int hour = modTime >> 11;
         int minute = (modTime >> 5) & 0b111111;
@@ -542,7 +1939,7 @@ public final class Archive implements Closeable {
 
     public boolean isDirectory(final long entryHandle) {
         final int madeBy = getUnsignedShort(bufs, offset + entryHandle + CDE_VERSION_MADE_BY);
-        final int extAttr = getInt(bufs, entryHandle + CDE_EXTERNAL_ATTRIBUTES);
+        final int extAttr = getInt(bufs, offset + entryHandle + CDE_EXTERNAL_ATTRIBUTES);
         switch (madeBy) {
             case MADE_BY_UNIX: {
                 //noinspection OctalInteger
@@ -583,6 +1980,31 @@ public final class Archive implements Closeable {
         static char charFor(int c) {
             return codePoints[c];
         }
+
+        /**
+         * Determine whether the given bytes all map to the same character in CP-437 and in UTF-8.
+         */
+        static boolean isAscii(byte[] bytes, int offs, int len) {
+            for (int i = 0; i < len; i ++) {
+                if (! isAscii(bytes[offs + i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        static boolean isAscii(ByteBuffer bytes, int start, int end) {
+            for (int i = start; i < end; i ++) {
+                if (! isAscii(bytes.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isAscii(byte b) {
+            return 0x20 <= b && b < 0x7f;
+        }
     }
 
     static final class Utf8 {
@@ -606,6 +2028,90 @@ public final class Archive implements Closeable {
             }
         }
 
+        static int hashCode(final byte[] bytes, final int offs, final int len) {
+            final int end = offs + len;
+            int hc = 0;
+            int i = offs;
+            while (i < end) {
+                final int a = bytes[i] & 0xff;
+                if (a < 0x80) {
+                    hc = hc * 31 + a;
+                    i ++;
+                } else {
+                    final int n = getByteCount(a);
+                    hc = hashCode(hc, codePoint(a, n, bytes, i, end));
+                    i += n;
+                }
+            }
+            return hc;
+        }
+
+        static int hashCode(final ByteBuffer bytes, final int start, final int end) {
+            int hc = 0;
+            int i = start;
+            while (i < end) {
+                final int a = bytes.get(i) & 0xff;
+                if (a < 0x80) {
+                    hc = hc * 31 + a;
+                    i ++;
+                } else {
+                    final int n = getByteCount(a);
+                    hc = hashCode(hc, codePoint(a, n, bytes, i, end));
+                    i += n;
+                }
+            }
+            return hc;
+        }
+
+        private static int hashCode(int hc, final int cp) {
+            if (Character.isSupplementaryCodePoint(cp)) {
+                hc = hc * 31 + Character.highSurrogate(cp);
+                return hc * 31 + Character.lowSurrogate(cp);
+            } else {
+                return hc * 31 + cp;
+            }
+        }
+
+        static int codePoint(final int a, final int n, final byte[] bytes, final int i, final int end) {
+            if (i + n > end) {
+                return '�';
+            }
+            return codePoint(a, n, n > 1 ? bytes[i + 1] & 0xff : 0, n > 2 ? bytes[i + 2] & 0xff : 0, n > 3 ? bytes[i + 3] & 0xff : 0);
+        }
+
+        static int codePoint(final int a, final int n, final ByteBuffer bytes, final int i, final int end) {
+            if (i + n > end) {
+                return '�';
+            }
+            return codePoint(a, n, n > 1 ? bytes.get(i + 1) & 0xff : 0, n > 2 ? bytes.get(i + 2) & 0xff : 0, n > 3 ? bytes.get(i + 3) & 0xff : 0);
+        }
+
+        /**
+         * Decode a code point from a lead byte and up to three continuation bytes, in the same way as
+         * {@link #codePointAt(ByteBuffer[], long)}.
+         */
+        private static int codePoint(final int a, final int n, final int b, final int c, final int d) {
+            if (n == 1) {
+                return a <= 0b0111_1111 ? a : '�';
+            }
+            if ((b & 0b11_000000) != 0b10_000000) {
+                return '�';
+            }
+            if (n == 2) {
+                return (a & 0b000_11111) << 6 | b & 0b00_111111;
+            }
+            if ((c & 0b11_000000) != 0b10_000000) {
+                return '�';
+            }
+            if (n == 3) {
+                return (a & 0b0000_1111) << 12 | (b & 0b00_111111) << 6 | c & 0b00_111111;
+            }
+            if ((d & 0b11_000000) != 0b10_000000) {
+                return '�';
+            }
+            return (a & 0b00000_111) << 18 | (b & 0b00_111111) << 12 | (c & 0b00_111111) << 6 | d & 0b00_111111;
+        }
+
         static int codePointAt(final ByteBuffer[] bufs, final long i) {
             final int a = getUnsignedByte(bufs, i);
             if (a <= 0b0111_1111) {
@@ -704,19 +2210,34 @@ public final class Archive implements Closeable {
             ByteBuffer buf = bufs[bi].duplicate();
             buf.position(bo);
             final int cnt = min(len, buf.remaining());
-            buf.get(dest, 0, cnt);
+            buf.get(dest, off, cnt);
             len -= cnt;
             off += cnt;
             idx += cnt;
         }
     }
 
+    static void copyBytes(ByteBuffer[] bufs, long idx, long len, ByteBuffer dest) {
+        while (len > 0) {
+            final int bo = bufOffs(idx);
+            ByteBuffer buf = bufs[bufIdx(idx)].duplicate();
+            buf.position(bo);
+            final int cnt = (int) min(len, buf.remaining());
+            buf.limit(bo + cnt);
+            dest.put(buf);
+            len -= cnt;
+            idx += cnt;
+        }
+    }
+
     static byte[] getBytes(ByteBuffer[] bufs, long idx, int len) {
         final byte[] bytes = new byte[len];
         readBytes(bufs, idx, bytes, 0, len);
         return bytes;
     }
 
+    private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
     private static final ByteBuffer EMPTY_BUF = ByteBuffer.allocateDirect(0);
 
     static ByteBuffer sliceOf(ByteBuffer[] bufs, long idx, int len) {
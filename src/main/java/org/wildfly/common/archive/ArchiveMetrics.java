@@ -0,0 +1,206 @@
+package org.wildfly.common.archive;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.wildfly.common.Assert;
+
+/**
+ * Counters of the activity of the archives which are opened with these metrics.  All counters are striped, so
+ * recording activity from many threads does not contend.  Metrics may be exported as periodic JFR events with
+ * {@link #enableEvents()}.
+ *
+ * @see ArchiveOptions#withMetrics(ArchiveMetrics)
+ */
+public final class ArchiveMetrics {
+    /**
+     * The metrics which are exported as JFR events.
+     */
+    static final Set<ArchiveMetrics> EXPORTED = new CopyOnWriteArraySet<>();
+
+    private final String name;
+    private final LongAdder opens = new LongAdder();
+    private final LongAdder openNanos = new LongAdder();
+    private final LongAdder nestedOpens = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder hitNanos = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder missNanos = new LongAdder();
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder inflations = new LongAdder();
+    private final LongAdder bytesInflated = new LongAdder();
+    private final LongAdder bytesMapped = new LongAdder();
+
+    /**
+     * Construct a new instance.
+     *
+     * @param name the name of these metrics, which identifies them in events (must not be {@code null})
+     */
+    public ArchiveMetrics(final String name) {
+        Assert.checkNotNullParam("name", name);
+        this.name = name;
+    }
+
+    void recordOpen(final long nanos) {
+        opens.increment();
+        openNanos.add(nanos);
+    }
+
+    void recordNestedOpen() {
+        nestedOpens.increment();
+    }
+
+    void recordLookup(final boolean hit, final int probes, final long nanos) {
+        if (hit) {
+            hits.increment();
+            hitNanos.add(nanos);
+        } else {
+            misses.increment();
+            missNanos.add(nanos);
+        }
+        this.probes.add(probes);
+    }
+
+    void recordInflation() {
+        inflations.increment();
+    }
+
+    void recordInflated(final long bytes) {
+        bytesInflated.add(bytes);
+    }
+
+    void recordMapped(final long bytes) {
+        bytesMapped.add(bytes);
+    }
+
+    /**
+     * Get the name of these metrics.
+     *
+     * @return the name (not {@code null})
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the number of archives which have been opened, including nested archives.
+     *
+     * @return the open count
+     */
+    public long getOpenCount() {
+        return opens.sum();
+    }
+
+    /**
+     * Get the total time spent opening archives, which is mostly spent building or loading their indexes.
+     *
+     * @return the open time in nanoseconds
+     */
+    public long getOpenNanos() {
+        return openNanos.sum();
+    }
+
+    /**
+     * Get the number of nested archives which have been opened.
+     *
+     * @return the nested open count
+     */
+    public long getNestedOpenCount() {
+        return nestedOpens.sum();
+    }
+
+    /**
+     * Get the number of lookups by name which found an entry.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the total time spent in lookups by name which found an entry.
+     *
+     * @return the hit time in nanoseconds
+     */
+    public long getHitNanos() {
+        return hitNanos.sum();
+    }
+
+    /**
+     * Get the number of lookups by name which did not find an entry.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the total time spent in lookups by name which did not find an entry.
+     *
+     * @return the miss time in nanoseconds
+     */
+    public long getMissNanos() {
+        return missNanos.sum();
+    }
+
+    /**
+     * Get the total number of entry names which were compared by lookups.  Divided by the number of lookups, this
+     * is the average probe length.
+     *
+     * @return the probe count
+     */
+    public long getProbeCount() {
+        return probes.sum();
+    }
+
+    /**
+     * Get the number of times that the contents of a deflated entry were inflated, other than from a content cache.
+     *
+     * @return the inflation count
+     */
+    public long getInflationCount() {
+        return inflations.sum();
+    }
+
+    /**
+     * Get the total number of bytes produced by inflating entry contents.
+     *
+     * @return the number of bytes inflated
+     */
+    public long getBytesInflated() {
+        return bytesInflated.sum();
+    }
+
+    /**
+     * Get the total number of bytes of stored entry contents which were returned or transferred directly from
+     * the archive buffers, without being copied.
+     *
+     * @return the number of bytes read without copying
+     */
+    public long getBytesMapped() {
+        return bytesMapped.sum();
+    }
+
+    /**
+     * Export these metrics as periodic {@code org.wildfly.common.archive.ArchiveMetrics} JFR events, which are
+     * emitted while a recording which enables them is running.  This requires the {@code jdk.jfr} module.
+     */
+    public void enableEvents() {
+        ArchiveMetricsEvent.register();
+        EXPORTED.add(this);
+    }
+
+    /**
+     * Stop exporting these metrics as JFR events.
+     */
+    public void disableEvents() {
+        EXPORTED.remove(this);
+    }
+
+    public String toString() {
+        return String.format("ArchiveMetrics[%s,opens=%d,hits=%d,misses=%d,probes=%d,inflations=%d,inflated=%d,mapped=%d]", name, getOpenCount(), getHitCount(), getMissCount(), getProbeCount(), getInflationCount(), getBytesInflated(), getBytesMapped());
+    }
+}
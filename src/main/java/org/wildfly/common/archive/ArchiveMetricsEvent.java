@@ -0,0 +1,93 @@
+package org.wildfly.common.archive;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A periodic snapshot of the counters of {@link ArchiveMetrics}.  This class is only loaded once events are
+ * enabled, so that the {@code jdk.jfr} module is otherwise not needed.
+ */
+@Name("org.wildfly.common.archive.ArchiveMetrics")
+@Label("Archive Metrics")
+@Category({ "WildFly", "Archive" })
+@Description("Activity of the archives which share a set of metrics")
+@Period("10 s")
+@StackTrace(false)
+final class ArchiveMetricsEvent extends Event {
+    private static boolean registered;
+
+    @Label("Name")
+    String name;
+
+    @Label("Opens")
+    long opens;
+
+    @Label("Open Time")
+    @Timespan
+    long openTime;
+
+    @Label("Nested Opens")
+    long nestedOpens;
+
+    @Label("Lookup Hits")
+    long hits;
+
+    @Label("Lookup Hit Time")
+    @Timespan
+    long hitTime;
+
+    @Label("Lookup Misses")
+    long misses;
+
+    @Label("Lookup Miss Time")
+    @Timespan
+    long missTime;
+
+    @Label("Lookup Probes")
+    long probes;
+
+    @Label("Inflations")
+    long inflations;
+
+    @Label("Bytes Inflated")
+    @DataAmount
+    long bytesInflated;
+
+    @Label("Bytes Mapped")
+    @DataAmount
+    long bytesMapped;
+
+    static synchronized void register() {
+        if (! registered) {
+            FlightRecorder.addPeriodicEvent(ArchiveMetricsEvent.class, ArchiveMetricsEvent::emit);
+            registered = true;
+        }
+    }
+
+    private static void emit() {
+        for (ArchiveMetrics metrics : ArchiveMetrics.EXPORTED) {
+            final ArchiveMetricsEvent event = new ArchiveMetricsEvent();
+            event.name = metrics.getName();
+            event.opens = metrics.getOpenCount();
+            event.openTime = metrics.getOpenNanos();
+            event.nestedOpens = metrics.getNestedOpenCount();
+            event.hits = metrics.getHitCount();
+            event.hitTime = metrics.getHitNanos();
+            event.misses = metrics.getMissCount();
+            event.missTime = metrics.getMissNanos();
+            event.probes = metrics.getProbeCount();
+            event.inflations = metrics.getInflationCount();
+            event.bytesInflated = metrics.getBytesInflated();
+            event.bytesMapped = metrics.getBytesMapped();
+            event.commit();
+        }
+    }
+}
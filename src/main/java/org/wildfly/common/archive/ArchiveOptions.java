@@ -0,0 +1,373 @@
+package org.wildfly.common.archive;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.wildfly.common.Assert;
+
+/**
+ * Options which control how an {@link Archive} is opened.  Instances are immutable; each {@code with*} method
+ * returns a new instance with the given option changed.
+ */
+public final class ArchiveOptions {
+
+    /**
+     * The default options.
+     */
+    public static final ArchiveOptions DEFAULT = new ArchiveOptions(null, false, InflaterPool.getDefault(), false, false, 0, ContentCache.Retention.STRONG, false, false, 0, Preload.NONE, List.of(), null, null);
+
+    private final Path indexCacheDirectory;
+    private final boolean indexCacheSidecar;
+    private final InflaterPool inflaterPool;
+    private final boolean parallelIndexing;
+    private final boolean compressedNestedArchives;
+    private final long contentCacheSize;
+    private final ContentCache.Retention contentCacheRetention;
+    private final boolean compactIndex;
+    private final boolean incrementalReopen;
+    private final int multiReleaseVersion;
+    private final Preload preload;
+    private final List<String> preloadEntries;
+    private final Executor preloadExecutor;
+    private final ArchiveMetrics metrics;
+
+    private ArchiveOptions(final Path indexCacheDirectory, final boolean indexCacheSidecar, final InflaterPool inflaterPool, final boolean parallelIndexing, final boolean compressedNestedArchives, final long contentCacheSize, final ContentCache.Retention contentCacheRetention, final boolean compactIndex, final boolean incrementalReopen, final int multiReleaseVersion, final Preload preload, final List<String> preloadEntries, final Executor preloadExecutor, final ArchiveMetrics metrics) {
+        this.indexCacheDirectory = indexCacheDirectory;
+        this.indexCacheSidecar = indexCacheSidecar;
+        this.inflaterPool = inflaterPool;
+        this.parallelIndexing = parallelIndexing;
+        this.compressedNestedArchives = compressedNestedArchives;
+        this.contentCacheSize = contentCacheSize;
+        this.contentCacheRetention = contentCacheRetention;
+        this.compactIndex = compactIndex;
+        this.incrementalReopen = incrementalReopen;
+        this.multiReleaseVersion = multiReleaseVersion;
+        this.preload = preload;
+        this.preloadEntries = preloadEntries;
+        this.preloadExecutor = preloadExecutor;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Get the directory in which persistent index files are kept.
+     *
+     * @return the index cache directory, or {@code null} if none is configured
+     */
+    public Path getIndexCacheDirectory() {
+        return indexCacheDirectory;
+    }
+
+    /**
+     * Determine whether persistent index files are kept alongside the archive file itself.
+     *
+     * @return {@code true} if sidecar index files are used, {@code false} otherwise
+     */
+    public boolean isIndexCacheSidecar() {
+        return indexCacheSidecar;
+    }
+
+    /**
+     * Keep persistent index files in the given directory.  The index of an archive is stored the first time the
+     * archive is opened, and is reused by later opens as long as the archive file size, modification time, and
+     * central directory checksum are unchanged.
+     *
+     * @param directory the cache directory (must not be {@code null})
+     * @return the new options (not {@code null})
+     */
+    public ArchiveOptions withIndexCacheDirectory(final Path directory) {
+        Assert.checkNotNullParam("directory", directory);
+        return new ArchiveOptions(directory, false, inflaterPool, parallelIndexing, compressedNestedArchives, contentCacheSize, contentCacheRetention, compactIndex, incrementalReopen, multiReleaseVersion, preload, preloadEntries, preloadExecutor, metrics);
+    }
+
+    /**
+     * Keep persistent index files alongside each archive, in a file whose name is the archive file name
+     * with {@code .idx} appended.
+     *
+     * @return the new options (not {@code null})
+     */
+    public ArchiveOptions withIndexCacheSidecar() {
+        return new ArchiveOptions(null, true, inflaterPool, parallelIndexing, compressedNestedArchives, contentCacheSize, contentCacheRetention, compactIndex, incrementalReopen, multiReleaseVersion, preload, preloadEntries, preloadExecutor, metrics);
+    }
+
+    /**
+     * Do not use a persistent index.
+     *
+     * @return the new options (not {@code null})
+     */
+    public ArchiveOptions withoutIndexCache() {
+        return new ArchiveOptions(null, false, inflaterPool, parallelIndexing, compressedNestedArchives, contentCacheSize, contentCacheRetention, compactIndex, incrementalReopen, multiReleaseVersion, preload, preloadEntries, preloadExecutor, metrics);
+    }
+
+    /**
+     * Get the pool from which inflaters for compressed entries are taken.
+     *
+     * @return the inflater pool (not {@code null})
+     */
+    public InflaterPool getInflaterPool() {
+        return inflaterPool;
+    }
+
+    /**
+     * Take inflaters for compressed entries from the given pool.
+     *
+     * @param inflaterPool the inflater pool (must not be {@code null})
+     * @return the new options (not {@code null})
+     */
+    public ArchiveOptions withInflaterPool(final InflaterPool inflaterPool) {
+        Assert.checkNotNullParam("inflaterPool", inflaterPool);
+        return new ArchiveOptions(indexCacheDirectory, indexCacheSidecar, inflaterPool, parallelIndexing, compressedNestedArchives, contentCacheSize, contentCacheRetention, compactIndex, incrementalReopen, multiReleaseVersion, preload, preloadEntries, preloadExecutor, metrics);
+    }
+
+    /**
+     * Determine whether entry names are hashed in parallel when building the index.
+     *
+     * @return {@code true} if parallel indexing is enabled, {@code false} otherwise
+     */
+    public boolean isParallelIndexing() {
+        return parallelIndexing;
+    }
+
+    /**
+     * Enable or disable parallel indexing.  When enabled, the entry names of archives with many entries are hashed
+     * in parallel using the common fork-join pool.  The resulting index is identical to the one built sequentially.
+     *
+     * @param parallelIndexing {@code true} to enable parallel indexing, {@code false} to disable it
+     * @return the new options (not {@code null})
+     */
+    public ArchiveOptions withParallelIndexing(final boolean parallelIndexing) {
+        return new ArchiveOptions(indexCacheDirectory, indexCacheSidecar, inflaterPool, parallelIndexing, compressedNestedArchives, contentCacheSize, contentCacheRetention, compactIndex, incrementalReopen, multiReleaseVersion, preload, preloadEntries, preloadExecutor, metrics);
+    }
+
+    /**
+     * Determine whether compressed nested archives may be opened.
+     *
+     * @return {@code true} if compressed nested archives may be opened, {@code false} otherwise
+     */
+    public boolean isCompressedNestedArchives() {
+        return compressedNestedArchives;
+    }
+
+    /**
+     * Enable or disable opening of compressed nested archives.  When enabled, a compressed nested archive is
+     * inflated once into an anonymous temporary file which is memory-mapped, and the resultant archive is retained
+     * by the enclosing archive until the enclosing archive is closed.
+     *
+     * @param compressedNestedArchives {@code true} to enable opening compressed nested archives, {@code false} to
+     *      disable it
+     * @return the new options (not {@code null})
+     */
+    public ArchiveOptions withCompressedNestedArchives(final boolean compressedNestedArchives) {
+        return new ArchiveOptions(indexCacheDirectory, indexCacheSidecar, inflaterPool, parallelIndexing, compressedNestedArchives, contentCacheSize, contentCacheRetention, compactIndex, incrementalReopen, multiReleaseVersion, preload, preloadEntries, preloadExecutor, metrics);
+    }
+
+    /**
+     * Get the maximum total size of inflated entry contents to cache per archive.
+     *
+     * @return the maximum size in bytes, or 0 if contents are not cached
+     */
+    public long getContentCacheSize() {
+        return contentCacheSize;
+    }
+
+    /**
+     * Get the retention policy of the content cache.
+     *
+     * @return the retention policy (not {@code null})
+     */
+    public ContentCache.Retention getContentCacheRetention() {
+        return contentCacheRetention;
+    }
+
+    /**
+     * Cache the inflated contents of compressed entries.  Each archive keeps its own approximately
+     * least-recently-used cache, bounded by the total size of the cached contents.  When the cache is enabled,
+     * {@link Archive#getEntryContents(long)} returns read-only buffers for compressed entries.
+     *
+     * @param maxSize the maximum total size of cached contents in bytes, or 0 to disable the cache
+     * @param retention the retention policy for cached contents (must not be {@code null})
+     * @return the new options (not {@code null})
+     */
+    public ArchiveOptions withContentCache(final long maxSize, final ContentCache.Retention retention) {
+        Assert.checkMinimumParameter("maxSize", 0L, maxSize);
+        Assert.checkNotNullParam("retention", retention);
+        return new ArchiveOptions(indexCacheDirectory, indexCacheSidecar, inflaterPool, parallelIndexing, compressedNestedArchives, maxSize, retention, compactIndex, incrementalReopen, multiReleaseVersion, preload, preloadEntries, preloadExecutor, metrics);
+    }
+
+    /**
+     * Determine whether archives use a compact in-memory index.
+     *
+     * @return {@code true} if the compact index is enabled, {@code false} otherwise
+     */
+    public boolean isCompactIndex() {
+        return compactIndex;
+    }
+
+    /**
+     * Enable or disable the compact in-memory index.  The compact index uses substantially less memory than the
+     * default index for large archives, and compares fewer entry names per lookup, at the cost of a slightly more
+     * expensive probe.  It is not used when a persistent index is configured, because a persistent index is
+     * memory-mapped rather than held on the heap.
+     *
+     * @param compactIndex {@code true} to enable the compact index, {@code false} to disable it
+     * @return the new options (not {@code null})
+     */
+    public ArchiveOptions withCompactIndex(final boolean compactIndex) {
+        return new ArchiveOptions(indexCacheDirectory, indexCacheSidecar, inflaterPool, parallelIndexing, compressedNestedArchives, contentCacheSize, contentCacheRetention, compactIndex, incrementalReopen, multiReleaseVersion, preload, preloadEntries, preloadExecutor, metrics);
+    }
+
+    /**
+     * Determine whether {@link Archive#reopen(Archive)} reuses the index of an archive whose file has grown.
+     *
+     * @return {@code true} if incremental reopening is enabled, {@code false} otherwise
+     */
+    public boolean isIncrementalReopen() {
+        return incrementalReopen;
+    }
+
+    /**
+     * Enable or disable incremental reopening.  When enabled, the central directory of an archive which is opened
+     * from a file is checksummed, so that {@link Archive#reopen(Archive)} can recognize a new directory which begins
+     * with a copy of it, and index only the entries which were added.  It has no effect when a persistent index is
+     * configured, because the persistent index is reused instead.
+     *
+     * @param incrementalReopen {@code true} to enable incremental reopening, {@code false} to disable it
+     * @return the new options (not {@code null})
+     */
+    public ArchiveOptions withIncrementalReopen(final boolean incrementalReopen) {
+        return new ArchiveOptions(indexCacheDirectory, indexCacheSidecar, inflaterPool, parallelIndexing, compressedNestedArchives, contentCacheSize, contentCacheRetention, compactIndex, incrementalReopen, multiReleaseVersion, preload, preloadEntries, preloadExecutor, metrics);
+    }
+
+    /**
+     * Get the release for which the versioned entries of multi-release JARs are selected.
+     *
+     * @return the release, or 0 if versioned entries are not selected
+     */
+    public int getMultiReleaseVersion() {
+        return multiReleaseVersion;
+    }
+
+    /**
+     * Select the versioned entries of multi-release JARs for the given release.  When an archive whose manifest
+     * has a {@code Multi-Release: true} attribute is opened, the entries under {@code META-INF/versions/N/} are
+     * resolved once, and looking up an entry by name returns the handle of its highest version which is no
+     * greater than the given release, or of the unversioned entry if there is none.  Entry names, listings, and
+     * iteration are not affected.
+     *
+     * @param version the release (for example, {@code Runtime.version().feature()}), or 0 to disable version
+     *      selection
+     * @return the new options (not {@code null})
+     */
+    public ArchiveOptions withMultiReleaseVersion(final int version) {
+        Assert.checkMinimumParameter("version", 0, version);
+        return new ArchiveOptions(indexCacheDirectory, indexCacheSidecar, inflaterPool, parallelIndexing, compressedNestedArchives, contentCacheSize, contentCacheRetention, compactIndex, incrementalReopen, version, preload, preloadEntries, preloadExecutor, metrics);
+    }
+
+    /**
+     * Get the regions of archive files which are loaded into memory when they are opened.
+     *
+     * @return the preload mode (not {@code null})
+     */
+    public Preload getPreload() {
+        return preload;
+    }
+
+    /**
+     * Load the given regions of archive files into memory in the background when they are opened, so that later
+     * reads do not fault in pages one at a time.  Preloading only applies to archives which are opened from a file.
+     *
+     * @param preload the preload mode (must not be {@code null})
+     * @return the new options (not {@code null})
+     * @see Archive#getPreloadCompletion()
+     */
+    public ArchiveOptions withPreload(final Preload preload) {
+        Assert.checkNotNullParam("preload", preload);
+        return new ArchiveOptions(indexCacheDirectory, indexCacheSidecar, inflaterPool, parallelIndexing, compressedNestedArchives, contentCacheSize, contentCacheRetention, compactIndex, incrementalReopen, multiReleaseVersion, preload, preloadEntries, preloadExecutor, metrics);
+    }
+
+    /**
+     * Get the names of the entries which are loaded into memory when an archive file is opened.
+     *
+     * @return the entry names (not {@code null})
+     */
+    public List<String> getPreloadEntries() {
+        return preloadEntries;
+    }
+
+    /**
+     * Load the headers and data of the given entries into memory in the background when an archive file is opened.
+     * These entries are loaded after the central directory and before the rest of the file.  Names which are not
+     * found in an archive are ignored.
+     *
+     * @param names the entry names (must not be {@code null})
+     * @return the new options (not {@code null})
+     */
+    public ArchiveOptions withPreloadEntries(final Collection<String> names) {
+        Assert.checkNotNullParam("names", names);
+        return new ArchiveOptions(indexCacheDirectory, indexCacheSidecar, inflaterPool, parallelIndexing, compressedNestedArchives, contentCacheSize, contentCacheRetention, compactIndex, incrementalReopen, multiReleaseVersion, preload, List.copyOf(names), preloadExecutor, metrics);
+    }
+
+    /**
+     * Get the executor on which archive files are preloaded.
+     *
+     * @return the executor, or {@code null} if the shared default executor is used
+     */
+    public Executor getPreloadExecutor() {
+        return preloadExecutor;
+    }
+
+    /**
+     * Preload archive files on the given executor, such as an executor which runs each task in a virtual thread.
+     * By default, archives are preloaded on a small number of daemon threads which are shared by all archives.
+     *
+     * @param executor the executor, or {@code null} to use the shared default executor
+     * @return the new options (not {@code null})
+     */
+    public ArchiveOptions withPreloadExecutor(final Executor executor) {
+        return new ArchiveOptions(indexCacheDirectory, indexCacheSidecar, inflaterPool, parallelIndexing, compressedNestedArchives, contentCacheSize, contentCacheRetention, compactIndex, incrementalReopen, multiReleaseVersion, preload, preloadEntries, executor, metrics);
+    }
+
+    boolean hasIndexCache() {
+        return indexCacheDirectory != null || indexCacheSidecar;
+    }
+
+    /**
+     * Get the metrics to which archive activity is recorded.
+     *
+     * @return the metrics, or {@code null} if activity is not recorded
+     */
+    public ArchiveMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Record the activity of archives to the given metrics.  The same metrics may be given to many archives, for
+     * example to all of the archives of one deployment.  Nested archives are opened with the same options, so
+     * their activity is recorded to the same metrics.
+     *
+     * @param metrics the metrics, or {@code null} to not record activity
+     * @return the new options (not {@code null})
+     */
+    public ArchiveOptions withMetrics(final ArchiveMetrics metrics) {
+        return new ArchiveOptions(indexCacheDirectory, indexCacheSidecar, inflaterPool, parallelIndexing, compressedNestedArchives, contentCacheSize, contentCacheRetention, compactIndex, incrementalReopen, multiReleaseVersion, preload, preloadEntries, preloadExecutor, metrics);
+    }
+
+    /**
+     * The regions of an archive file which are loaded into memory when it is opened.
+     */
+    public enum Preload {
+        /**
+         * Nothing is preloaded, other than entries given to {@link ArchiveOptions#withPreloadEntries(Collection)}.
+         */
+        NONE,
+        /**
+         * The central directory is preloaded.
+         */
+        CENTRAL_DIRECTORY,
+        /**
+         * The whole file is preloaded, starting with the central directory.
+         */
+        FULL,
+    }
+}
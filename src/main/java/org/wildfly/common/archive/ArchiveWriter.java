@@ -0,0 +1,472 @@
+package org.wildfly.common.archive;
+
+import static org.wildfly.common.archive.Archive.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.wildfly.common.Assert;
+
+/**
+ * A writer for ZIP archives which can be read by {@link Archive}.  Deflated entries are compressed in parallel
+ * using a fork-join pool, while the entries are still written in the order in which they were added.  Stored
+ * entries are written directly from their source buffers or channels.  ZIP64 records are written for any entry,
+ * entry offset, or directory which does not fit into the standard fields.
+ * <p>
+ * Instances are not thread-safe.  Buffers which are given to this writer must not be modified until the writer
+ * is closed.
+ */
+public final class ArchiveWriter implements Closeable {
+    private static final int VERSION = 20;
+    private static final int VERSION_ZIP64 = 45;
+    private static final long MAX_INT = 0xffff_ffffL;
+    private static final int MAX_SHORT = 0xffff;
+    private static final int EXT_ATTR_DIRECTORY = 0x10;
+    private static final int DEFLATE_BUFFER_SIZE = 0x10000;
+
+    private final WritableByteChannel channel;
+    private final ForkJoinPool pool;
+    private final int maxPending;
+    private final ArrayDeque<ForkJoinTask<Deflated>> pending = new ArrayDeque<>();
+    private final Set<String> names = new HashSet<>();
+    private final ByteBuffer header = ByteBuffer.allocate(LH_END + 20 + MAX_SHORT).order(ByteOrder.LITTLE_ENDIAN);
+    private ByteBuffer directory = ByteBuffer.allocate(0x1000).order(ByteOrder.LITTLE_ENDIAN);
+    private long position;
+    private long entries;
+    private int level = Deflater.DEFAULT_COMPRESSION;
+    private int dosTime = dosTime(System.currentTimeMillis());
+    private boolean closed;
+
+    /**
+     * Construct a new instance.  The archive is written from the current position of the channel, and the
+     * offsets recorded in the archive are relative to that position.  Closing the writer closes the channel.
+     *
+     * @param channel the channel to write to (must not be {@code null})
+     * @param pool the pool on which to deflate entries (must not be {@code null})
+     */
+    public ArchiveWriter(final WritableByteChannel channel, final ForkJoinPool pool) {
+        Assert.checkNotNullParam("channel", channel);
+        Assert.checkNotNullParam("pool", pool);
+        this.channel = channel;
+        this.pool = pool;
+        maxPending = pool.getParallelism() << 2;
+    }
+
+    /**
+     * Create or replace the archive file at the given path, deflating entries on the common fork-join pool.
+     *
+     * @param path the archive file path (must not be {@code null})
+     * @return the writer (not {@code null})
+     * @throws IOException if the file could not be opened
+     */
+    public static ArchiveWriter create(Path path) throws IOException {
+        return create(path, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create or replace the archive file at the given path.
+     *
+     * @param path the archive file path (must not be {@code null})
+     * @param pool the pool on which to deflate entries (must not be {@code null})
+     * @return the writer (not {@code null})
+     * @throws IOException if the file could not be opened
+     */
+    public static ArchiveWriter create(Path path, ForkJoinPool pool) throws IOException {
+        Assert.checkNotNullParam("path", path);
+        Assert.checkNotNullParam("pool", pool);
+        return new ArchiveWriter(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), pool);
+    }
+
+    /**
+     * Set the compression level of entries which are added after this call.
+     *
+     * @param level the compression level, from 0 to 9, or -1 for the default level
+     */
+    public void setCompressionLevel(int level) {
+        Assert.checkMinimumParameter("level", -1, level);
+        Assert.checkMaximumParameter("level", 9, level);
+        this.level = level;
+    }
+
+    /**
+     * Set the modification time of entries which are added after this call.  Modification times are recorded
+     * with a precision of two seconds.  The default is the time at which this writer was constructed.
+     *
+     * @param millis the modification time in milliseconds since the epoch
+     */
+    public void setModifiedTime(long millis) {
+        dosTime = dosTime(millis);
+    }
+
+    /**
+     * Add a directory entry.
+     *
+     * @param name the directory name, with or without a trailing {@code /} (must not be {@code null})
+     * @throws IOException if the entry could not be written
+     */
+    public void addDirectory(String name) throws IOException {
+        Assert.checkNotNullParam("name", name);
+        final String dirName = name.endsWith("/") ? name : name + "/";
+        final byte[] nameBytes = encodeName(dirName);
+        flushPending();
+        names.add(dirName);
+        writeEntry(nameBytes, METHOD_STORED, 0, 0, 0, dosTime, EXT_ATTR_DIRECTORY);
+    }
+
+    /**
+     * Add a deflated entry.  The entry is deflated in the background; if deflating does not make the entry
+     * smaller, it is stored instead.
+     *
+     * @param name the entry name (must not be {@code null})
+     * @param contents the entry contents (must not be {@code null})
+     * @throws IOException if an entry could not be written
+     */
+    public void addEntry(String name, byte[] contents) throws IOException {
+        Assert.checkNotNullParam("contents", contents);
+        addEntry(name, ByteBuffer.wrap(contents));
+    }
+
+    /**
+     * Add a deflated entry from the remaining bytes of the given buffer.  The buffer position is not changed.
+     * The entry is deflated in the background; if deflating does not make the entry smaller, it is stored instead.
+     *
+     * @param name the entry name (must not be {@code null})
+     * @param contents the entry contents (must not be {@code null})
+     * @throws IOException if an entry could not be written
+     */
+    public void addEntry(String name, ByteBuffer contents) throws IOException {
+        Assert.checkNotNullParam("name", name);
+        Assert.checkNotNullParam("contents", contents);
+        checkOpen();
+        final byte[] nameBytes = encodeName(name);
+        names.add(name);
+        final ByteBuffer source = contents.duplicate();
+        final int level = this.level;
+        final int dosTime = this.dosTime;
+        pending.add(pool.submit(() -> deflate(nameBytes, source, level, dosTime)));
+        // write whatever is complete, and bound the amount of work in flight
+        while (! pending.isEmpty() && (pending.peek().isDone() || pending.size() > maxPending)) {
+            writeDeflated(pending.poll().join());
+        }
+    }
+
+    /**
+     * Add a stored entry from the remaining bytes of the given buffer.  The buffer position is not changed.
+     *
+     * @param name the entry name (must not be {@code null})
+     * @param contents the entry contents (must not be {@code null})
+     * @throws IOException if an entry could not be written
+     */
+    public void addStoredEntry(String name, ByteBuffer contents) throws IOException {
+        Assert.checkNotNullParam("name", name);
+        Assert.checkNotNullParam("contents", contents);
+        final byte[] nameBytes = encodeName(name);
+        flushPending();
+        names.add(name);
+        final CRC32 crc32 = new CRC32();
+        crc32.update(contents.duplicate());
+        final int size = contents.remaining();
+        writeEntry(nameBytes, METHOD_STORED, (int) crc32.getValue(), size, size, dosTime, 0);
+        writeFully(contents.duplicate());
+    }
+
+    /**
+     * Add a stored entry from a region of the given file channel.  The region is checksummed through a read-only
+     * mapping and then transferred to the output channel without being copied through the Java heap.
+     *
+     * @param name the entry name (must not be {@code null})
+     * @param source the source channel (must not be {@code null})
+     * @param position the position of the first byte of the entry contents in the source channel
+     * @param count the number of bytes of the entry contents
+     * @throws IOException if the source could not be read or the entry could not be written
+     */
+    public void addStoredEntry(String name, FileChannel source, long position, long count) throws IOException {
+        Assert.checkNotNullParam("name", name);
+        Assert.checkNotNullParam("source", source);
+        Assert.checkMinimumParameter("position", 0L, position);
+        Assert.checkMinimumParameter("count", 0L, count);
+        final byte[] nameBytes = encodeName(name);
+        flushPending();
+        if (position + count > source.size()) {
+            throw new IOException("Source region extends past the end of the file");
+        }
+        names.add(name);
+        final CRC32 crc32 = new CRC32();
+        long cnt = 0;
+        while (cnt < count) {
+            final long chunk = Math.min(count - cnt, Integer.MAX_VALUE);
+            crc32.update(source.map(FileChannel.MapMode.READ_ONLY, position + cnt, chunk));
+            cnt += chunk;
+        }
+        writeEntry(nameBytes, METHOD_STORED, (int) crc32.getValue(), count, count, dosTime, 0);
+        cnt = 0;
+        while (cnt < count) {
+            final long res = source.transferTo(position + cnt, count - cnt, channel);
+            if (res == 0 && position + cnt >= source.size()) {
+                throw new IOException("Source file was truncated");
+            }
+            cnt += res;
+        }
+        this.position += count;
+    }
+
+    /**
+     * Copy an entry from another archive, with its name, modification time, and data unchanged.  Compressed
+     * entries are copied without being inflated and deflated again.
+     *
+     * @param archive the source archive (must not be {@code null})
+     * @param entryHandle the handle of the entry in the source archive
+     * @throws IOException if the entry could not be read or written
+     */
+    public void copyEntry(Archive archive, long entryHandle) throws IOException {
+        Assert.checkNotNullParam("archive", archive);
+        checkOpen();
+        final int method = archive.getCompressionMethod(entryHandle);
+        if (method != METHOD_STORED && method != METHOD_DEFLATE) {
+            throw new IOException("Unsupported compression scheme");
+        }
+        final String name = archive.getEntryName(entryHandle);
+        final byte[] nameBytes = encodeName(name);
+        flushPending();
+        names.add(name);
+        writeEntry(nameBytes, method, archive.getEntryCrc32(entryHandle), archive.getCompressedSize(entryHandle), archive.getUncompressedSize(entryHandle), dosTime(archive.getModifiedTime(entryHandle)), archive.isDirectory(entryHandle) ? EXT_ATTR_DIRECTORY : 0);
+        position += archive.transferRawEntryTo(entryHandle, channel);
+    }
+
+    /**
+     * Finish writing all pending entries, write the central directory, and close the channel.
+     *
+     * @throws IOException if the archive could not be completed
+     */
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flushPending();
+            final long cd = position;
+            final ByteBuffer directory = this.directory;
+            final long cdSize = directory.flip().remaining();
+            writeFully(directory);
+            this.directory = null;
+            final ByteBuffer buf = ByteBuffer.allocate(EOCD_ZIP64_END + EOCDL_ZIP64_END + EOCD_END).order(ByteOrder.LITTLE_ENDIAN);
+            final boolean zip64 = entries >= MAX_SHORT || cd >= MAX_INT || cdSize >= MAX_INT;
+            if (zip64) {
+                final long eocdZip64 = position;
+                buf.putInt(SIG_EOCD_ZIP64);
+                buf.putLong(EOCD_ZIP64_END - EOCD_ZIP64_VERSION_MADE_BY);
+                buf.putShort((short) VERSION_ZIP64);
+                buf.putShort((short) VERSION_ZIP64);
+                buf.putInt(0);
+                buf.putInt(0);
+                buf.putLong(entries);
+                buf.putLong(entries);
+                buf.putLong(cdSize);
+                buf.putLong(cd);
+                buf.putInt(SIG_EOCDL_ZIP64);
+                buf.putInt(0);
+                buf.putLong(eocdZip64);
+                buf.putInt(1);
+            }
+            buf.putInt(SIG_EOCD);
+            buf.putShort((short) 0);
+            buf.putShort((short) 0);
+            buf.putShort((short) Math.min(entries, MAX_SHORT));
+            buf.putShort((short) Math.min(entries, MAX_SHORT));
+            buf.putInt((int) Math.min(cdSize, MAX_INT));
+            buf.putInt((int) Math.min(cd, MAX_INT));
+            buf.putShort((short) 0);
+            writeFully(buf.flip());
+        } finally {
+            closed = true;
+            for (ForkJoinTask<Deflated> task : pending) {
+                task.cancel(false);
+            }
+            pending.clear();
+            channel.close();
+        }
+    }
+
+    private static Deflated deflate(final byte[] name, final ByteBuffer source, final int level, final int dosTime) {
+        final CRC32 crc32 = new CRC32();
+        crc32.update(source.duplicate());
+        final int size = source.remaining();
+        final Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(source.duplicate());
+            deflater.finish();
+            byte[] out = new byte[Math.min(Math.max(size >> 1, 64), DEFLATE_BUFFER_SIZE)];
+            int len = 0;
+            while (! deflater.finished()) {
+                if (len == out.length) {
+                    if (len >= size) {
+                        // deflating does not help
+                        return new Deflated(name, METHOD_STORED, (int) crc32.getValue(), size, dosTime, source);
+                    }
+                    out = Arrays.copyOf(out, len << 1);
+                }
+                len += deflater.deflate(out, len, out.length - len);
+            }
+            if (len >= size) {
+                return new Deflated(name, METHOD_STORED, (int) crc32.getValue(), size, dosTime, source);
+            }
+            return new Deflated(name, METHOD_DEFLATE, (int) crc32.getValue(), size, dosTime, ByteBuffer.wrap(out, 0, len));
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void flushPending() throws IOException {
+        checkOpen();
+        while (! pending.isEmpty()) {
+            writeDeflated(pending.poll().join());
+        }
+    }
+
+    private void writeDeflated(final Deflated deflated) throws IOException {
+        final ByteBuffer data = deflated.data;
+        writeEntry(deflated.name, deflated.method, deflated.crc, data.remaining(), deflated.size, deflated.dosTime, 0);
+        writeFully(data);
+    }
+
+    /**
+     * Write the local header of an entry, and add its central directory entry.  The entry data must be written
+     * immediately afterwards.
+     */
+    private void writeEntry(final byte[] name, final int method, final int crc, final long compSize, final long size, final int dosTime, final int extAttr) throws IOException {
+        final long lh = position;
+        final boolean zip64Data = compSize >= MAX_INT || size >= MAX_INT;
+        final boolean zip64Entry = zip64Data || lh >= MAX_INT;
+        final ByteBuffer header = this.header;
+        header.clear();
+        header.putInt(SIG_LH);
+        header.putShort((short) (zip64Data ? VERSION_ZIP64 : VERSION));
+        header.putShort((short) GP_UTF_8);
+        header.putShort((short) method);
+        header.putInt(dosTime);
+        header.putInt(crc);
+        header.putInt((int) (zip64Data ? MAX_INT : compSize));
+        header.putInt((int) (zip64Data ? MAX_INT : size));
+        header.putShort((short) name.length);
+        header.putShort((short) (zip64Data ? 20 : 0));
+        header.put(name);
+        if (zip64Data) {
+            header.putShort((short) EXT_ID_ZIP64);
+            header.putShort((short) 16);
+            header.putLong(size);
+            header.putLong(compSize);
+        }
+        writeFully(header.flip());
+        // in the central directory, either all three ZIP64 values are present or none are
+        ByteBuffer directory = ensureDirectoryCapacity(CDE_END + name.length + 28);
+        directory.putInt(SIG_CDE);
+        directory.putShort((short) (MADE_BY_MS_DOS << 8 | VERSION_ZIP64));
+        directory.putShort((short) (zip64Entry ? VERSION_ZIP64 : VERSION));
+        directory.putShort((short) GP_UTF_8);
+        directory.putShort((short) method);
+        directory.putInt(dosTime);
+        directory.putInt(crc);
+        directory.putInt((int) (zip64Entry ? MAX_INT : compSize));
+        directory.putInt((int) (zip64Entry ? MAX_INT : size));
+        directory.putShort((short) name.length);
+        directory.putShort((short) (zip64Entry ? 28 : 0));
+        directory.putShort((short) 0);
+        directory.putShort((short) 0);
+        directory.putShort((short) 0);
+        directory.putInt(extAttr);
+        directory.putInt((int) (zip64Entry ? MAX_INT : lh));
+        directory.put(name);
+        if (zip64Entry) {
+            directory.putShort((short) EXT_ID_ZIP64);
+            directory.putShort((short) 24);
+            directory.putLong(size);
+            directory.putLong(compSize);
+            directory.putLong(lh);
+        }
+        entries ++;
+    }
+
+    private ByteBuffer ensureDirectoryCapacity(final int cnt) {
+        ByteBuffer directory = this.directory;
+        if (directory.remaining() < cnt) {
+            final int newCapacity = Math.toIntExact(Math.max((long) directory.capacity() << 1, (long) directory.position() + cnt));
+            directory = ByteBuffer.allocate(newCapacity).order(ByteOrder.LITTLE_ENDIAN).put(directory.flip());
+            this.directory = directory;
+        }
+        return directory;
+    }
+
+    private void writeFully(final ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            position += channel.write(buf);
+        }
+    }
+
+    /**
+     * Encode and validate the name of a new entry.  The name is only reserved by adding it to {@link #names} once
+     * the entry has been accepted, so that a rejected entry does not prevent a later entry with the same name.
+     */
+    private byte[] encodeName(final String name) {
+        final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length == 0 || bytes.length > MAX_SHORT) {
+            throw new IllegalArgumentException("Invalid entry name length");
+        }
+        if (names.contains(name)) {
+            throw new IllegalArgumentException("Duplicate entry name \"" + name + "\"");
+        }
+        return bytes;
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Archive writer is closed");
+        }
+    }
+
+    static int dosTime(final long millis) {
+        final LocalDateTime dateTime = LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L), 0, ZoneOffset.UTC);
+        final int year = dateTime.getYear();
+        if (year < 1980) {
+            return 1 << 21 | 1 << 16;
+        } else if (year > 2107) {
+            return 127 << 25 | 12 << 21 | 31 << 16 | 23 << 11 | 59 << 5 | 29;
+        }
+        return (year - 1980) << 25 | dateTime.getMonthValue() << 21 | dateTime.getDayOfMonth() << 16
+            | dateTime.getHour() << 11 | dateTime.getMinute() << 5 | dateTime.getSecond() >> 1;
+    }
+
+    static final class Deflated {
+        final byte[] name;
+        final int method;
+        final int crc;
+        final long size;
+        final int dosTime;
+        final ByteBuffer data;
+
+        Deflated(final byte[] name, final int method, final int crc, final long size, final int dosTime, final ByteBuffer data) {
+            this.name = name;
+            this.method = method;
+            this.crc = crc;
+            this.size = size;
+            this.dosTime = dosTime;
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.wildfly.common.archive;
+
+/**
+ * A writable linear probing index whose table is held in an array on the heap.
+ */
+abstract class ArrayIndex extends LinearIndex implements WritableIndex {
+
+    ArrayIndex(final int entries) {
+        super(entries);
+    }
+
+    ArrayIndex(final int entries, final int tableSize) {
+        super(entries, tableSize);
+    }
+
+    /**
+     * Create a copy of this index for the same directory entries after the directory has moved by the given
+     * distance, with room for more entries to be added.  The copy has the same table size as this index, so it
+     * is only made if its load would be no higher than that of a new index.
+     *
+     * @param delta the distance by which the directory has moved
+     * @param entries the total number of entries which the copy must hold
+     * @param length the length of the archive which the copy is for
+     * @return the copy, or {@code null} if this index cannot be copied for the given number of entries and length
+     */
+    abstract ArrayIndex relocate(long delta, int entries, long length);
+}
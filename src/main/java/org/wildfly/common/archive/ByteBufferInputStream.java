@@ -30,6 +30,7 @@ final class ByteBufferInputStream extends InputStream {
         final int realLen = (int) Math.min(len, rem);
         if (realLen > 0) {
             Archive.readBytes(bufs, offset + pos, b, off, realLen);
+            pos += realLen;
             return realLen;
         } else {
             return 0;
@@ -0,0 +1,359 @@
+package org.wildfly.common.archive;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+import org.wildfly.common.Assert;
+
+/**
+ * A merged index of the entries of an ordered sequence of archives, such as the archives of a class path.  Looking
+ * up a name costs a single hash table probe regardless of the number of archives.
+ * <p>
+ * Archives are searched in the order in which they were added.  Archives may be added and removed at any time,
+ * and lookups may proceed concurrently with each other and with changes.  An archive must be removed from the
+ * index before it is closed.  Entries are found as their archives would find them: if an archive was opened for
+ * a multi-release version, the versioned entry which it selects is found under its unversioned name, in place of
+ * the unversioned entry.
+ */
+public final class ClassPathIndex {
+    private static final int INITIAL_SIZE = 64;
+
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * The archives by ID; removed archives are {@code null}.
+     */
+    private Archive[] archives = new Archive[8];
+    /**
+     * The number of records belonging to each archive.
+     */
+    private int[] archiveRecords = new int[8];
+    private int archiveCount;
+    private int liveRecords;
+    private int deadRecords;
+
+    /**
+     * The first and last record of each hash bucket, or -1 if the bucket is empty.  Records are chained in the
+     * order in which they were added, so the chains are in archive order.
+     */
+    private int[] heads;
+    private int[] tails;
+    private int[] recordHash = new int[INITIAL_SIZE];
+    private int[] recordArchive = new int[INITIAL_SIZE];
+    private long[] recordHandle = new long[INITIAL_SIZE];
+    /**
+     * The number of leading name bytes to skip when comparing the name of each record, which is the length of the
+     * version prefix of a selected versioned entry, or 0 otherwise.
+     */
+    private int[] recordSkip = new int[INITIAL_SIZE];
+    private int[] recordNext = new int[INITIAL_SIZE];
+    private int recordCount;
+
+    /**
+     * Construct a new, empty instance.
+     */
+    public ClassPathIndex() {
+        heads = newBuckets(INITIAL_SIZE);
+        tails = newBuckets(INITIAL_SIZE);
+    }
+
+    /**
+     * Add an archive after all of the archives which are already in this index.
+     *
+     * @param archive the archive to add (must not be {@code null})
+     * @throws IllegalArgumentException if the archive is already in this index
+     * @throws IOException if the archive directory is corrupt
+     */
+    public void add(Archive archive) throws IOException {
+        Assert.checkNotNullParam("archive", archive);
+        final long[] entryHandles = archive.getEntryHandles();
+        final long[] versioned = archive.getVersionedEntryHandles();
+        final int cnt = entryHandles.length + versioned.length;
+        final long[] handles = new long[cnt];
+        final int[] hashes = new int[cnt];
+        final int[] skips = new int[cnt];
+        int n = 0;
+        // selected versioned entries are found under their unversioned names
+        for (long handle : versioned) {
+            final int skip = archive.getVersionPrefixLength(handle);
+            handles[n] = handle;
+            hashes[n] = archive.getEntryName(handle).substring(skip).hashCode();
+            skips[n ++] = skip;
+        }
+        for (long handle : entryHandles) {
+            if (versioned.length == 0 || ! archive.isVersionOverridden(handle)) {
+                handles[n] = handle;
+                hashes[n ++] = archive.getEntryNameHashCode(handle);
+            }
+        }
+        final long stamp = lock.writeLock();
+        try {
+            if (indexOf(archive) != -1) {
+                throw new IllegalArgumentException("Archive is already present");
+            }
+            addRecords(archive, handles, hashes, skips, n);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Remove an archive from this index.
+     *
+     * @param archive the archive to remove (must not be {@code null})
+     * @return {@code true} if the archive was removed, or {@code false} if it was not in this index
+     */
+    public boolean remove(Archive archive) {
+        Assert.checkNotNullParam("archive", archive);
+        final long stamp = lock.writeLock();
+        try {
+            final int id = indexOf(archive);
+            if (id == -1) {
+                return false;
+            }
+            archives[id] = null;
+            liveRecords -= archiveRecords[id];
+            deadRecords += archiveRecords[id];
+            if (deadRecords > liveRecords) {
+                // records of removed archives are skipped by lookups until most records are dead
+                rebuild();
+            }
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Get the archives of this index, in search order.
+     *
+     * @return the archives (not {@code null})
+     */
+    public List<Archive> getArchives() {
+        final long stamp = lock.readLock();
+        try {
+            final List<Archive> list = new ArrayList<>(archiveCount);
+            for (int i = 0; i < archiveCount; i ++) {
+                if (archives[i] != null) {
+                    list.add(archives[i]);
+                }
+            }
+            return list;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Find the first entry with the given name, in search order.
+     *
+     * @param name the entry name (must not be {@code null})
+     * @return the match, or {@code null} if no archive has an entry with the given name
+     */
+    public Match getFirst(String name) {
+        Assert.checkNotNullParam("name", name);
+        final int hashCode = name.hashCode();
+        final long stamp = lock.readLock();
+        try {
+            for (int r = heads[hashCode & heads.length - 1]; r != -1; r = recordNext[r]) {
+                final Match match = matchOf(r, hashCode, name);
+                if (match != null) {
+                    return match;
+                }
+            }
+            return null;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Find all entries with the given name, in search order.
+     *
+     * @param name the entry name (must not be {@code null})
+     * @return the matches, which may be empty (not {@code null})
+     */
+    public List<Match> getAll(String name) {
+        Assert.checkNotNullParam("name", name);
+        final int hashCode = name.hashCode();
+        List<Match> list = null;
+        final long stamp = lock.readLock();
+        try {
+            for (int r = heads[hashCode & heads.length - 1]; r != -1; r = recordNext[r]) {
+                final Match match = matchOf(r, hashCode, name);
+                if (match != null) {
+                    if (list == null) {
+                        list = new ArrayList<>(2);
+                    }
+                    list.add(match);
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return list == null ? Collections.emptyList() : list;
+    }
+
+    private Match matchOf(final int record, final int hashCode, final String name) {
+        if (recordHash[record] != hashCode) {
+            return null;
+        }
+        final Archive archive = archives[recordArchive[record]];
+        if (archive == null) {
+            return null;
+        }
+        final long handle = recordHandle[record];
+        return archive.entryNameEquals(handle, recordSkip[record], name) ? new Match(archive, handle) : null;
+    }
+
+    private int indexOf(final Archive archive) {
+        for (int i = 0; i < archiveCount; i ++) {
+            if (archives[i] == archive) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void addRecords(final Archive archive, final long[] handles, final int[] hashes, final int[] skips, final int cnt) {
+        if (archiveCount == archives.length) {
+            archives = Arrays.copyOf(archives, archiveCount << 1);
+            archiveRecords = Arrays.copyOf(archiveRecords, archiveCount << 1);
+        }
+        final int id = archiveCount ++;
+        archives[id] = archive;
+        archiveRecords[id] = cnt;
+        liveRecords += cnt;
+        final int needed = recordCount + cnt;
+        if (needed > recordHash.length) {
+            final int newSize = Math.max(recordHash.length << 1, needed);
+            recordHash = Arrays.copyOf(recordHash, newSize);
+            recordArchive = Arrays.copyOf(recordArchive, newSize);
+            recordHandle = Arrays.copyOf(recordHandle, newSize);
+            recordSkip = Arrays.copyOf(recordSkip, newSize);
+            recordNext = Arrays.copyOf(recordNext, newSize);
+        }
+        if (needed > heads.length) {
+            // keep the chains short
+            resize(Integer.highestOneBit(needed - 1) << 1);
+        }
+        for (int i = 0; i < cnt; i ++) {
+            final int r = recordCount ++;
+            recordHash[r] = hashes[i];
+            recordArchive[r] = id;
+            recordHandle[r] = handles[i];
+            recordSkip[r] = skips[i];
+            link(r);
+        }
+    }
+
+    private void link(final int record) {
+        final int bucket = recordHash[record] & heads.length - 1;
+        recordNext[record] = -1;
+        final int tail = tails[bucket];
+        if (tail == -1) {
+            heads[bucket] = record;
+        } else {
+            recordNext[tail] = record;
+        }
+        tails[bucket] = record;
+    }
+
+    private void resize(final int size) {
+        heads = newBuckets(size);
+        tails = newBuckets(size);
+        for (int r = 0; r < recordCount; r ++) {
+            link(r);
+        }
+    }
+
+    private void rebuild() {
+        final Archive[] live = new Archive[archiveCount];
+        final int[] liveCounts = new int[archiveCount];
+        int liveArchives = 0;
+        for (int i = 0; i < archiveCount; i ++) {
+            if (archives[i] != null) {
+                live[liveArchives] = archives[i];
+                liveCounts[liveArchives ++] = archiveRecords[i];
+            }
+        }
+        // move the live records down, keeping their order
+        final int[] newIds = new int[archiveCount];
+        for (int i = 0, j = 0; i < archiveCount; i ++) {
+            newIds[i] = archives[i] == null ? -1 : j ++;
+        }
+        int w = 0;
+        for (int r = 0; r < recordCount; r ++) {
+            final int newId = newIds[recordArchive[r]];
+            if (newId != -1) {
+                recordHash[w] = recordHash[r];
+                recordArchive[w] = newId;
+                recordHandle[w] = recordHandle[r];
+                recordSkip[w] = recordSkip[r];
+                w ++;
+            }
+        }
+        recordCount = w;
+        archives = Arrays.copyOf(live, Math.max(8, liveArchives));
+        archiveRecords = Arrays.copyOf(liveCounts, Math.max(8, liveArchives));
+        archiveCount = liveArchives;
+        deadRecords = 0;
+        resize(Math.max(INITIAL_SIZE, Integer.highestOneBit(Math.max(1, recordCount - 1)) << 1));
+    }
+
+    private static int[] newBuckets(final int size) {
+        final int[] buckets = new int[size];
+        Arrays.fill(buckets, -1);
+        return buckets;
+    }
+
+    public String toString() {
+        final long stamp = lock.readLock();
+        try {
+            int cnt = 0;
+            for (int i = 0; i < archiveCount; i ++) {
+                if (archives[i] != null) {
+                    cnt ++;
+                }
+            }
+            return String.format("ClassPathIndex[archives=%d,entries=%d]", cnt, liveRecords);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * An entry which was found in the index.
+     */
+    public static final class Match {
+        private final Archive archive;
+        private final long entryHandle;
+
+        Match(final Archive archive, final long entryHandle) {
+            this.archive = archive;
+            this.entryHandle = entryHandle;
+        }
+
+        /**
+         * Get the archive which contains the entry.
+         *
+         * @return the archive (not {@code null})
+         */
+        public Archive getArchive() {
+            return archive;
+        }
+
+        /**
+         * Get the handle of the entry within its archive.
+         *
+         * @return the entry handle
+         */
+        public long getEntryHandle() {
+            return entryHandle;
+        }
+    }
+}
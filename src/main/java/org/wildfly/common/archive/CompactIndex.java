@@ -0,0 +1,181 @@
+package org.wildfly.common.archive;
+
+/**
+ * A dense index which uses Robin Hood probing at a load factor of about 80%.  Each slot packs the entry offset
+ * relative to the start of the central directory, the probe distance of the entry, and a few bits of the name
+ * hash code as a fingerprint.  Slots are 32 bits wide if the central directory is small enough to leave room for
+ * the distance and fingerprint, or 64 bits wide otherwise.
+ * <p>
+ * A lookup only yields slots whose home slot and fingerprint both match the name, so most probes that do not
+ * find the name never compare entry names.  Because entries are displaced in favor of entries which are further
+ * from their home slot, an unsuccessful lookup stops as soon as it reaches an entry which is closer to its home.
+ */
+final class CompactIndex extends Index implements WritableIndex {
+    private static final int MIN_FP_BITS = 4;
+    private static final int MIN_DIST_BITS = 5;
+    private static final int MAX_DIST_BITS = 8;
+    private static final int MAX_FP_BITS = 24;
+
+    private final long base;
+    private final int[] table32;
+    private final long[] table64;
+    private final int distShift;
+    private final int offsetShift;
+    private final long fpMask;
+    private final long distMask;
+    private final int maxDist;
+    private final long maxOffset;
+    private boolean overflowed;
+
+    private CompactIndex(final int entries, final int tableSize, final long base, final boolean wide, final int fpBits, final int distBits) {
+        super(entries, tableSize);
+        this.base = base;
+        table32 = wide ? null : new int[tableSize];
+        table64 = wide ? new long[tableSize] : null;
+        distShift = fpBits;
+        offsetShift = fpBits + distBits;
+        fpMask = (1L << fpBits) - 1;
+        distMask = (1L << distBits) - 1;
+        // the stored distance is one more than the actual distance, so that zero means an empty slot
+        maxDist = (1 << distBits) - 2;
+        maxOffset = (wide ? -1L : 0xffff_ffffL) >>> offsetShift;
+    }
+
+    /**
+     * Create a compact index for the given central directory.
+     *
+     * @param cd the offset of the central directory
+     * @param cdSize the size of the central directory
+     * @param entries the number of entries
+     * @return the index, or {@code null} if the central directory is too large for a compact index
+     */
+    static CompactIndex create(final long cd, final long cdSize, final int entries) {
+        if (entries >= 1 << 30) {
+            return null;
+        }
+        final int offsetBits = 64 - Long.numberOfLeadingZeros(Math.max(cdSize, 1));
+        final int tableSize = Math.max(entries + (entries >> 2), 1) + 1;
+        int free = 32 - offsetBits;
+        if (free >= MIN_FP_BITS + MIN_DIST_BITS) {
+            final int distBits = Math.max(MIN_DIST_BITS, Math.min(MAX_DIST_BITS, free >> 1));
+            return new CompactIndex(entries, tableSize, cd, false, free - distBits, distBits);
+        }
+        free = 64 - offsetBits;
+        if (free >= MIN_FP_BITS + MAX_DIST_BITS) {
+            return new CompactIndex(entries, tableSize, cd, true, Math.min(MAX_FP_BITS, free - MAX_DIST_BITS), MAX_DIST_BITS);
+        }
+        return null;
+    }
+
+    /**
+     * Determine whether an entry could not be added because its probe distance or offset would not fit into its
+     * slot.  An index which has overflowed is incomplete and must not be used.
+     *
+     * @return {@code true} if the index has overflowed, {@code false} otherwise
+     */
+    boolean overflowed() {
+        return overflowed;
+    }
+
+    private long slot(final int index) {
+        final int[] table32 = this.table32;
+        return table32 != null ? table32[index] & 0xffff_ffffL : table64[index];
+    }
+
+    private void setSlot(final int index, final long val) {
+        final int[] table32 = this.table32;
+        if (table32 != null) {
+            table32[index] = (int) val;
+        } else {
+            table64[index] = val;
+        }
+    }
+
+    private int home(final int hashCode) {
+        // the high bits of the mixed hash choose the home slot, and lower bits form the fingerprint
+        final long mixed = hashCode * 0x9E37_79B9_7F4A_7C15L;
+        return (int) (((mixed >>> 32) * tableSize) >>> 32);
+    }
+
+    private long fingerprint(final int hashCode) {
+        final long mixed = hashCode * 0x9E37_79B9_7F4A_7C15L;
+        return (mixed >>> 8) & fpMask;
+    }
+
+    private int dist(final long slot) {
+        return (int) ((slot >>> distShift) & distMask) - 1;
+    }
+
+    long get(final int index) {
+        final long slot = slot(index);
+        return slot == 0 ? -1 : base + (slot >>> offsetShift);
+    }
+
+    public void put(final int hashCode, final long offset) {
+        if (overflowed) {
+            return;
+        }
+        final long relative = offset - base;
+        if (relative < 0 || relative > maxOffset) {
+            // the directory size was wrong
+            overflowed = true;
+            return;
+        }
+        final int tableSize = this.tableSize;
+        long entry = relative << offsetShift | fingerprint(hashCode);
+        int dist = 0;
+        int index = home(hashCode);
+        for (;;) {
+            final long cur = slot(index);
+            if (cur == 0) {
+                setSlot(index, entry | (long) (dist + 1) << distShift);
+                return;
+            }
+            final int curDist = dist(cur);
+            if (curDist < dist) {
+                // take the slot from the entry which is closer to its home
+                setSlot(index, entry | (long) (dist + 1) << distShift);
+                entry = cur & ~(distMask << distShift);
+                dist = curDist;
+            }
+            index = index + 1 == tableSize ? 0 : index + 1;
+            if (++ dist > maxDist) {
+                overflowed = true;
+                return;
+            }
+        }
+    }
+
+    int first(final int hashCode) {
+        return scan(hashCode, home(hashCode), 0);
+    }
+
+    int next(final int hashCode, final int index) {
+        int dist = index - home(hashCode);
+        if (dist < 0) {
+            dist += tableSize;
+        }
+        return scan(hashCode, index + 1 == tableSize ? 0 : index + 1, dist + 1);
+    }
+
+    private int scan(final int hashCode, int index, int dist) {
+        final long fp = fingerprint(hashCode);
+        final int tableSize = this.tableSize;
+        for (;;) {
+            final long cur = slot(index);
+            if (cur == 0) {
+                return -1;
+            }
+            final int curDist = dist(cur);
+            if (curDist < dist) {
+                // the entry we want would have displaced this one
+                return -1;
+            }
+            if (curDist == dist && (cur & fpMask) == fp) {
+                return index;
+            }
+            index = index + 1 == tableSize ? 0 : index + 1;
+            dist ++;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package org.wildfly.common.archive;
+
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A size-bounded cache of inflated entry contents, keyed by entry handle.  Each archive which is opened with a
+ * content cache enabled has its own instance.
+ * <p>
+ * Eviction approximates least-recently-used order with the clock algorithm: a lookup only marks the contents it
+ * finds as referenced, so lookups never lock, and eviction sweeps the cache, sparing referenced contents once.
+ *
+ * @see ArchiveOptions#withContentCache(long, Retention)
+ */
+public final class ContentCache {
+
+    /**
+     * The way in which cached contents are retained.
+     */
+    public enum Retention {
+        /**
+         * Contents are retained until they are evicted to make room for other contents.
+         */
+        STRONG,
+        /**
+         * Contents are softly reachable, so they may also be cleared by the garbage collector when memory is low.
+         */
+        SOFT,
+        /**
+         * Contents are weakly reachable, so they are cleared by the garbage collector as soon as no caller
+         * holds them.
+         */
+        WEAK,
+    }
+
+    private final long maxSize;
+    private final Retention retention;
+    private final ConcurrentHashMap<Long, Holder> map = new ConcurrentHashMap<>();
+    private final AtomicLong size = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    /**
+     * The lock held while evicting.
+     */
+    private final ReentrantLock evictLock = new ReentrantLock();
+    /**
+     * The clock hand, which is only used while holding {@link #evictLock}.
+     */
+    private Iterator<Map.Entry<Long, Holder>> hand;
+
+    ContentCache(final long maxSize, final Retention retention) {
+        this.maxSize = maxSize;
+        this.retention = retention;
+    }
+
+    /**
+     * Get the cached contents of an entry.
+     *
+     * @param entryHandle the entry handle
+     * @return a read-only view of the cached contents, or {@code null} if they are not cached
+     */
+    ByteBuffer get(final long entryHandle) {
+        final Long key = Long.valueOf(entryHandle);
+        final Holder holder = map.get(key);
+        if (holder != null) {
+            final byte[] array = holder.get();
+            if (array != null) {
+                if (! holder.referenced) {
+                    holder.referenced = true;
+                }
+                hits.increment();
+                return ByteBuffer.wrap(array, 0, holder.size).asReadOnlyBuffer();
+            }
+            // cleared by GC
+            remove(key, holder);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Cache the contents of an entry.
+     *
+     * @param entryHandle the entry handle
+     * @param contents the contents, which must not be subsequently modified
+     * @return a read-only view of the contents
+     */
+    ByteBuffer put(final long entryHandle, final ByteBuffer contents) {
+        final int cnt = contents.remaining();
+        if (cnt > maxSize) {
+            return contents.asReadOnlyBuffer();
+        }
+        // hold the backing array, which is what callers' buffers keep reachable
+        final byte[] array;
+        if (contents.hasArray() && contents.arrayOffset() == 0 && contents.position() == 0) {
+            array = contents.array();
+        } else {
+            array = new byte[cnt];
+            contents.duplicate().get(array);
+        }
+        final Holder holder;
+        switch (retention) {
+            case SOFT: holder = new RefHolder(new SoftReference<>(array), cnt); break;
+            case WEAK: holder = new RefHolder(new WeakReference<>(array), cnt); break;
+            default: holder = new StrongHolder(array, cnt); break;
+        }
+        final Holder old = map.put(Long.valueOf(entryHandle), holder);
+        final long newSize = size.addAndGet(old == null ? cnt : cnt - old.size);
+        if (newSize > maxSize) {
+            evict();
+        }
+        return ByteBuffer.wrap(array, 0, cnt).asReadOnlyBuffer();
+    }
+
+    /**
+     * Evict contents until the cache is no larger than its maximum size, unless contents are being found faster
+     * than they can be passed over.
+     */
+    private void evict() {
+        final ReentrantLock evictLock = this.evictLock;
+        evictLock.lock();
+        try {
+            Iterator<Map.Entry<Long, Holder>> hand = this.hand;
+            // every pass clears the referenced mark of the contents it spares, so two full passes always suffice
+            int passes = 0;
+            while (size.get() > maxSize) {
+                if (hand == null || ! hand.hasNext()) {
+                    hand = map.entrySet().iterator();
+                    if (++ passes > 2 || ! hand.hasNext()) {
+                        break;
+                    }
+                }
+                final Map.Entry<Long, Holder> entry = hand.next();
+                final Holder holder = entry.getValue();
+                if (holder.referenced) {
+                    holder.referenced = false;
+                } else {
+                    remove(entry.getKey(), holder);
+                }
+            }
+            this.hand = hand;
+        } finally {
+            evictLock.unlock();
+        }
+    }
+
+    private void remove(final Long key, final Holder holder) {
+        if (map.remove(key, holder)) {
+            size.addAndGet(-holder.size);
+            evictions.increment();
+        }
+    }
+
+    void clear() {
+        for (Map.Entry<Long, Holder> entry : map.entrySet()) {
+            if (map.remove(entry.getKey(), entry.getValue())) {
+                size.addAndGet(-entry.getValue().size);
+            }
+        }
+    }
+
+    /**
+     * Get the maximum total size of the cached contents.
+     *
+     * @return the maximum size in bytes
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Get the total size of the contents which are currently cached, including contents which have been cleared
+     * by the garbage collector but not yet removed from the cache.
+     *
+     * @return the size in bytes
+     */
+    public long getSize() {
+        return size.get();
+    }
+
+    /**
+     * Get the retention policy of this cache.
+     *
+     * @return the retention policy (not {@code null})
+     */
+    public Retention getRetention() {
+        return retention;
+    }
+
+    /**
+     * Get the number of lookups which found cached contents.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of lookups which did not find cached contents.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the number of cached contents which were removed to make room for other contents, or because they
+     * were cleared by the garbage collector.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public String toString() {
+        return String.format("ContentCache[size=%d/%d,retention=%s,hits=%d,misses=%d,evictions=%d]", getSize(), maxSize, retention, getHitCount(), getMissCount(), getEvictionCount());
+    }
+
+    abstract static class Holder {
+        final int size;
+        /**
+         * Whether the contents have been added or found by a lookup since the clock hand last passed them.
+         */
+        volatile boolean referenced = true;
+
+        Holder(final int size) {
+            this.size = size;
+        }
+
+        abstract byte[] get();
+    }
+
+    static final class StrongHolder extends Holder {
+        private final byte[] array;
+
+        StrongHolder(final byte[] array, final int size) {
+            super(size);
+            this.array = array;
+        }
+
+        byte[] get() {
+            return array;
+        }
+    }
+
+    static final class RefHolder extends Holder {
+        private final Reference<byte[]> ref;
+
+        RefHolder(final Reference<byte[]> ref, final int size) {
+            super(size);
+            this.ref = ref;
+        }
+
+        byte[] get() {
+            return ref.get();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package org.wildfly.common.archive;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import org.wildfly.common.Assert;
+
+/**
+ * A sequential reader for the contents of an entry of any size.  Stored entries are read directly from the archive
+ * buffers; deflated entries are inflated in large chunks directly from the archive buffers into the caller's
+ * buffer, or into a single reused chunk buffer when transferring to a channel or stream.
+ * <p>
+ * Skipping is lazy: it only moves the position of the reader, and a deflated entry is inflated up to the new
+ * position when it is next read.  The inflater keeps its state between reads and skips, so no part of the entry
+ * is inflated more than once.
+ * <p>
+ * The reader counts the bytes it delivers and the time spent reading them, so that the throughput of a read can
+ * be reported.  Instances are not thread-safe.
+ *
+ * @see Archive#getEntryReader(long)
+ */
+public final class EntryReader implements ReadableByteChannel {
+    private static final int CHUNK_SIZE = 0x10_0000;
+
+    private final ByteBuffer[] bufs;
+    private final long start;
+    private final long size;
+    /**
+     * The inflating channel, or {@code null} if the entry is stored.
+     */
+    private final InflatingEntryChannel inflating;
+    private long position;
+    private long bytesRead;
+    private long nanos;
+    private ByteBuffer chunk;
+    private boolean closed;
+
+    EntryReader(final ByteBuffer[] bufs, final long start, final long size, final InflatingEntryChannel inflating) {
+        this.bufs = bufs;
+        this.start = start;
+        this.size = size;
+        this.inflating = inflating;
+    }
+
+    public int read(final ByteBuffer dst) throws IOException {
+        checkOpen();
+        final long begin = System.nanoTime();
+        final int cnt = readInto(dst);
+        nanos += System.nanoTime() - begin;
+        return cnt;
+    }
+
+    /**
+     * Read bytes into the given array.
+     *
+     * @param b the destination array (must not be {@code null})
+     * @param off the offset into the array
+     * @param len the maximum number of bytes to read
+     * @return the number of bytes read, or -1 if the end of the entry was reached
+     * @throws IOException if the entry could not be read
+     */
+    public int read(byte[] b, int off, int len) throws IOException {
+        Assert.checkNotNullParam("b", b);
+        Assert.checkArrayBounds(b, off, len);
+        return read(ByteBuffer.wrap(b, off, len));
+    }
+
+    private int readInto(final ByteBuffer dst) throws IOException {
+        if (position >= size) {
+            return -1;
+        }
+        final int cnt;
+        if (inflating == null) {
+            cnt = (int) Math.min(size - position, dst.remaining());
+            Archive.copyBytes(bufs, start + position, cnt, dst);
+        } else {
+            inflating.position(position);
+            cnt = inflating.read(dst);
+            if (cnt == -1) {
+                throw new IOException("Entry data is shorter than its recorded size");
+            }
+        }
+        position += cnt;
+        bytesRead += cnt;
+        return cnt;
+    }
+
+    /**
+     * Skip over bytes of the entry.  No data is read until the next read.
+     *
+     * @param n the number of bytes to skip
+     * @return the number of bytes skipped, which is less than {@code n} only if the end of the entry was reached
+     * @throws IOException if the reader is closed
+     */
+    public long skip(long n) throws IOException {
+        checkOpen();
+        final long cnt = Math.max(0, Math.min(n, size - position));
+        position += cnt;
+        return cnt;
+    }
+
+    /**
+     * Transfer the rest of the entry to the given channel.  Stored entries are written directly from slices of
+     * the archive buffers.
+     *
+     * @param target the channel to write to (must not be {@code null})
+     * @return the number of bytes transferred
+     * @throws IOException if the entry could not be read or the channel could not be written
+     */
+    public long transferTo(WritableByteChannel target) throws IOException {
+        Assert.checkNotNullParam("target", target);
+        checkOpen();
+        final long begin = System.nanoTime();
+        final long cnt;
+        if (inflating == null) {
+            cnt = Math.max(0, size - position);
+            Archive.transferBytes(bufs, start + position, cnt, target);
+            position += cnt;
+            bytesRead += cnt;
+        } else {
+            final ByteBuffer chunk = getChunk();
+            long total = 0;
+            while (readInto(chunk.clear()) != -1) {
+                chunk.flip();
+                while (chunk.hasRemaining()) {
+                    target.write(chunk);
+                }
+                total += chunk.limit();
+            }
+            cnt = total;
+        }
+        nanos += System.nanoTime() - begin;
+        return cnt;
+    }
+
+    /**
+     * Transfer the rest of the entry to the given stream.
+     *
+     * @param target the stream to write to (must not be {@code null})
+     * @return the number of bytes transferred
+     * @throws IOException if the entry could not be read or the stream could not be written
+     */
+    public long transferTo(OutputStream target) throws IOException {
+        Assert.checkNotNullParam("target", target);
+        checkOpen();
+        final long begin = System.nanoTime();
+        final ByteBuffer chunk = getChunk();
+        final byte[] array = chunk.array();
+        long total = 0;
+        int cnt;
+        while ((cnt = readInto(chunk.clear())) != -1) {
+            target.write(array, 0, cnt);
+            total += cnt;
+        }
+        nanos += System.nanoTime() - begin;
+        return total;
+    }
+
+    private ByteBuffer getChunk() {
+        ByteBuffer chunk = this.chunk;
+        if (chunk == null) {
+            chunk = this.chunk = ByteBuffer.allocate((int) Math.min(CHUNK_SIZE, Math.max(size, 1)));
+        }
+        return chunk;
+    }
+
+    /**
+     * Get the position of this reader within the uncompressed entry contents.
+     *
+     * @return the position
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Get the uncompressed size of the entry.
+     *
+     * @return the size
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Get the number of bytes which have been delivered by this reader, not counting skipped bytes.
+     *
+     * @return the number of bytes read
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Get the time spent reading, transferring, and inflating skipped data.
+     *
+     * @return the elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return nanos;
+    }
+
+    /**
+     * Get the rate at which this reader has delivered bytes, over the time spent reading.
+     *
+     * @return the throughput in bytes per second, or 0.0 if nothing has been read
+     */
+    public double getThroughput() {
+        return nanos == 0 ? 0.0 : bytesRead * 1_000_000_000.0 / nanos;
+    }
+
+    public boolean isOpen() {
+        return ! closed;
+    }
+
+    public void close() {
+        if (! closed) {
+            closed = true;
+            chunk = null;
+            if (inflating != null) {
+                inflating.close();
+            }
+        }
+    }
+
+    private void checkOpen() throws ClosedChannelException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    public String toString() {
+        return String.format("EntryReader[position=%d,size=%d,read=%d,throughput=%.1f MB/s]", position, size, bytesRead, getThroughput() / 1_000_000.0);
+    }
+}
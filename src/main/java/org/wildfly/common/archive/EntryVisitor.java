@@ -0,0 +1,27 @@
+package org.wildfly.common.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A visitor for the entries of an archive, which is given the raw properties of each entry.
+ *
+ * @see Archive#forEachEntry(EntryVisitor)
+ */
+@FunctionalInterface
+public interface EntryVisitor {
+    /**
+     * Visit an entry.  The name buffer is a read-only view of the name as it is encoded in the central directory,
+     * which is in UTF-8 if the {@link Archive#GP_UTF_8} flag is set for the entry, or in code page 437 otherwise;
+     * {@link Archive#getEntryName(long)} decodes it.  The buffer may refer directly to the archive contents, and
+     * should not be retained after this method returns.
+     *
+     * @param entryHandle the entry handle
+     * @param name the encoded entry name (not {@code null})
+     * @param method the compression method
+     * @param compressedSize the compressed size of the entry
+     * @param uncompressedSize the uncompressed size of the entry
+     * @throws IOException to stop visiting with an error
+     */
+    void visit(long entryHandle, ByteBuffer name, int method, long compressedSize, long uncompressedSize) throws IOException;
+}
@@ -5,7 +5,7 @@ import java.util.Arrays;
 /**
  * An index for archives greater than 4GB in size.
  */
-final class HugeIndex extends Index {
+final class HugeIndex extends ArrayIndex {
     private final long[] table;
 
     HugeIndex(final int entries) {
@@ -15,11 +15,17 @@ final class HugeIndex extends Index {
         this.table = array;
     }
 
+    private HugeIndex(final int entries, final long[] table) {
+        super(entries, table.length);
+        this.table = table;
+    }
+
     long get(final int index) {
         return table[index];
     }
 
-    void put(int index, final long offset) {
+    public void put(final int hashCode, final long offset) {
+        int index = hashCode & getMask();
         final long[] table = this.table;
         long val = table[index];
         while (val != -1L) {
@@ -28,4 +34,17 @@ final class HugeIndex extends Index {
         }
         table[index] = offset;
     }
+
+    ArrayIndex relocate(final long delta, final int entries, final long length) {
+        if (entryWidth(length) != 8 || entries > tableSize >> 1) {
+            return null;
+        }
+        final long[] table = this.table.clone();
+        for (int i = 0; i < table.length; i ++) {
+            if (table[i] != -1) {
+                table[i] += delta;
+            }
+        }
+        return new HugeIndex(entries, table);
+    }
 }
@@ -9,18 +9,67 @@ abstract class Index {
         if (entries >= 1 << 30) {
             throw new IllegalStateException("Index is too large");
         }
-        this.tableSize = Integer.highestOneBit(entries << 2);
+        // an empty archive still gets one (empty) slot, so that lookups need no special case
+        this.tableSize = Math.max(1, Integer.highestOneBit(entries << 2));
+    }
+
+    Index(final int entries, final int tableSize) {
+        if (entries > tableSize) {
+            throw new IllegalStateException("Index is too small");
+        }
+        this.tableSize = tableSize;
+    }
+
+    static ArrayIndex create(final long length, final int entries) {
+        switch (entryWidth(length)) {
+            case 2: return new TinyIndex(entries);
+            case 4: return new LargeIndex(entries);
+            default: return new HugeIndex(entries);
+        }
+    }
+
+    /**
+     * Get the number of bytes used to store each table slot for an archive of the given length.
+     *
+     * @param length the archive length
+     * @return the slot width in bytes
+     */
+    static int entryWidth(final long length) {
+        if (length <= 0xfffe) {
+            return 2;
+        } else if (length <= 0xffff_fffeL) {
+            return 4;
+        } else {
+            return 8;
+        }
     }
 
     final int size() {
         return tableSize;
     }
 
+    /**
+     * Get the entry offset stored in the given table slot.
+     *
+     * @param index the slot index
+     * @return the entry offset, or -1 if the slot is empty
+     */
     abstract long get(int index);
 
-    abstract void put(int index, long offset);
+    /**
+     * Get the first slot which may hold an entry with the given name hash code.
+     *
+     * @param hashCode the hash code of the entry name
+     * @return the slot index, or -1 if there are no candidate entries
+     */
+    abstract int first(int hashCode);
 
-    int getMask() {
-        return tableSize - 1;
-    }
+    /**
+     * Get the next slot after the given slot which may hold an entry with the given name hash code.
+     *
+     * @param hashCode the hash code of the entry name
+     * @param index the previous slot index returned by {@link #first} or {@code next}
+     * @return the slot index, or -1 if there are no more candidate entries
+     */
+    abstract int next(int hashCode, int index);
 }
@@ -0,0 +1,214 @@
+package org.wildfly.common.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * A persistent, memory-mappable copy of an archive index.
+ * <p>
+ * The cache file consists of a fixed-size little-endian header followed by the raw index table and then the raw
+ * table of the multi-release version index, if there is one.  A cache file is only used if the archive size,
+ * modification time, central directory location, central directory CRC, and multi-release version all match the
+ * values recorded in the header, and the tables match the CRC of the tables recorded in the header.
+ */
+final class IndexCache {
+    private static final int MAGIC = 0x58444957; // "WIDX"
+    private static final int VERSION = 2;
+
+    private static final int HDR_MAGIC = 0;
+    private static final int HDR_VERSION = 4;
+    private static final int HDR_FILE_SIZE = 8;
+    private static final int HDR_MOD_TIME = 16;
+    private static final int HDR_CD_OFFSET = 24;
+    private static final int HDR_CD_CRC = 32;
+    private static final int HDR_ENTRIES = 36;
+    private static final int HDR_WIDTH = 40;
+    private static final int HDR_TABLE_SIZE = 44;
+    private static final int HDR_TABLE_CRC = 48;
+    private static final int HDR_RELEASE = 52;
+    private static final int HDR_VERSION_TABLE_SIZE = 56;
+    // padded so that the tables are aligned
+    private static final int HDR_END = 64;
+
+    private final Path file;
+    private final long fileSize;
+    private final long modTime;
+
+    private IndexCache(final Path file, final long fileSize, final long modTime) {
+        this.file = file;
+        this.fileSize = fileSize;
+        this.modTime = modTime;
+    }
+
+    static IndexCache create(final Path archive, final long fileSize, final ArchiveOptions options) throws IOException {
+        final long modTime = Files.getLastModifiedTime(archive).toMillis();
+        final Path fileName = archive.getFileName();
+        final Path file;
+        if (options.isIndexCacheSidecar()) {
+            file = archive.resolveSibling(fileName + ".idx");
+        } else {
+            final String key = Integer.toHexString(archive.toAbsolutePath().normalize().toString().hashCode());
+            file = options.getIndexCacheDirectory().resolve(fileName + "-" + key + ".idx");
+        }
+        return new IndexCache(file, fileSize, modTime);
+    }
+
+    static int checksum(final ByteBuffer[] bufs, final long start, final long size) {
+        final CRC32 crc32 = new CRC32();
+        Archive.updateChecksum(crc32, bufs, start, size);
+        return (int) crc32.getValue();
+    }
+
+    /**
+     * Load the indexes of the archive from the cache file.
+     *
+     * @param cd the offset of the central directory
+     * @param cdCrc the CRC of the central directory
+     * @param entries the number of entries
+     * @param length the archive length
+     * @param release the multi-release version which the version index applies to, or 0 for none
+     * @return the indexes, or {@code null} if the cache file is missing or does not match the archive
+     */
+    Indexes load(final long cd, final int cdCrc, final int entries, final long length, final int release) {
+        final int width = Index.entryWidth(length);
+        final ByteBuffer buf;
+        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = fc.size();
+            if (size < HDR_END) {
+                return null;
+            }
+            buf = fc.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            // an unreadable cache is just a cache miss
+            return null;
+        }
+        if (buf.getInt(HDR_MAGIC) != MAGIC
+            || buf.getInt(HDR_VERSION) != VERSION
+            || buf.getLong(HDR_FILE_SIZE) != fileSize
+            || buf.getLong(HDR_MOD_TIME) != modTime
+            || buf.getLong(HDR_CD_OFFSET) != cd
+            || buf.getInt(HDR_CD_CRC) != cdCrc
+            || buf.getInt(HDR_ENTRIES) != entries
+            || buf.getInt(HDR_WIDTH) != width
+            || buf.getInt(HDR_RELEASE) != release) {
+            return null;
+        }
+        final ByteBuffer tables = buf.position(HDR_END).slice().order(ByteOrder.LITTLE_ENDIAN);
+        final MappedIndex index = new MappedIndex(entries, tables, width);
+        final int versionTableSize = buf.getInt(HDR_VERSION_TABLE_SIZE);
+        final long tableBytes = (long) index.size() * width;
+        if (buf.getInt(HDR_TABLE_SIZE) != index.size() || versionTableSize < 0 || Integer.bitCount(versionTableSize) > 1 || buf.capacity() != HDR_END + tableBytes + (long) versionTableSize * width) {
+            return null;
+        }
+        final MappedIndex versionIndex = versionTableSize == 0 ? null : new MappedIndex(versionTableSize, versionTableSize, tables.slice((int) tableBytes, versionTableSize * width).order(ByteOrder.LITTLE_ENDIAN), width);
+        // a torn or corrupted table would otherwise yield wrong entries
+        final CRC32 crc32 = new CRC32();
+        crc32.update(tables.duplicate());
+        if (buf.getInt(HDR_TABLE_CRC) != (int) crc32.getValue()) {
+            return null;
+        }
+        return new Indexes(index, versionIndex);
+    }
+
+    /**
+     * Store the indexes of the archive in the cache file.  Failures are ignored.
+     *
+     * @param index the index
+     * @param versionIndex the multi-release version index, or {@code null} if there is none
+     * @param cd the offset of the central directory
+     * @param cdCrc the CRC of the central directory
+     * @param entries the number of entries
+     * @param length the archive length
+     * @param release the multi-release version which the version index applies to, or 0 for none
+     */
+    void store(final Index index, final Index versionIndex, final long cd, final int cdCrc, final int entries, final long length, final int release) {
+        final int width = Index.entryWidth(length);
+        final int tableSize = index.size();
+        final int versionTableSize = versionIndex == null ? 0 : versionIndex.size();
+        final ByteBuffer buf = ByteBuffer.allocate(Math.toIntExact(HDR_END + ((long) tableSize + versionTableSize) * width)).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(HDR_MAGIC, MAGIC);
+        buf.putInt(HDR_VERSION, VERSION);
+        buf.putLong(HDR_FILE_SIZE, fileSize);
+        buf.putLong(HDR_MOD_TIME, modTime);
+        buf.putLong(HDR_CD_OFFSET, cd);
+        buf.putInt(HDR_CD_CRC, cdCrc);
+        buf.putInt(HDR_ENTRIES, entries);
+        buf.putInt(HDR_WIDTH, width);
+        buf.putInt(HDR_TABLE_SIZE, tableSize);
+        buf.putInt(HDR_RELEASE, release);
+        buf.putInt(HDR_VERSION_TABLE_SIZE, versionTableSize);
+        buf.position(HDR_END);
+        putTable(buf, index, width);
+        if (versionIndex != null) {
+            putTable(buf, versionIndex, width);
+        }
+        final CRC32 crc32 = new CRC32();
+        crc32.update(buf.flip().duplicate().position(HDR_END));
+        buf.putInt(HDR_TABLE_CRC, (int) crc32.getValue());
+        Path tmp = null;
+        try {
+            final Path dir = file.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            try (FileChannel fc = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                while (buf.hasRemaining()) {
+                    fc.write(buf);
+                }
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tmp = null;
+        } catch (IOException ignored) {
+            // the cache is only an optimization; the archive itself is still usable
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private static void putTable(final ByteBuffer buf, final Index index, final int width) {
+        final int tableSize = index.size();
+        for (int i = 0; i < tableSize; i ++) {
+            final long val = index.get(i);
+            switch (width) {
+                case 2: buf.putShort((short) val); break;
+                case 4: buf.putInt((int) val); break;
+                default: buf.putLong(val); break;
+            }
+        }
+    }
+
+    /**
+     * The indexes of an archive which were loaded from a cache file.
+     */
+    static final class Indexes {
+        final Index index;
+        /**
+         * The multi-release version index, or {@code null} if there is none.
+         */
+        final Index versionIndex;
+
+        Indexes(final Index index, final Index versionIndex) {
+            this.index = index;
+            this.versionIndex = versionIndex;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.wildfly.common.archive;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Inflater;
+
+import org.wildfly.common.Assert;
+
+/**
+ * A bounded, thread-safe pool of raw ({@code nowrap}) {@link Inflater} instances.  Acquiring an inflater from
+ * an empty pool creates a new one; releasing an inflater into a full pool ends it.
+ */
+public final class InflaterPool {
+    private static final InflaterPool DEFAULT = new InflaterPool(Runtime.getRuntime().availableProcessors() << 1);
+
+    private final AtomicReferenceArray<Inflater> slots;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder discards = new LongAdder();
+
+    /**
+     * Construct a new instance.
+     *
+     * @param size the maximum number of idle inflaters to retain (must be at least 1)
+     */
+    public InflaterPool(final int size) {
+        Assert.checkMinimumParameter("size", 1, size);
+        slots = new AtomicReferenceArray<>(size);
+    }
+
+    /**
+     * Get the shared default pool, which retains up to twice as many inflaters as there are processors.
+     *
+     * @return the default pool (not {@code null})
+     */
+    public static InflaterPool getDefault() {
+        return DEFAULT;
+    }
+
+    Inflater acquire() {
+        final AtomicReferenceArray<Inflater> slots = this.slots;
+        final int length = slots.length();
+        final int start = probeStart(length);
+        for (int i = 0; i < length; i ++) {
+            final int idx = (start + i) % length;
+            if (slots.getPlain(idx) != null) {
+                final Inflater inflater = slots.getAndSet(idx, null);
+                if (inflater != null) {
+                    hits.increment();
+                    return inflater;
+                }
+            }
+        }
+        misses.increment();
+        return new Inflater(true);
+    }
+
+    void release(final Inflater inflater) {
+        inflater.reset();
+        final AtomicReferenceArray<Inflater> slots = this.slots;
+        final int length = slots.length();
+        final int start = probeStart(length);
+        for (int i = 0; i < length; i ++) {
+            final int idx = (start + i) % length;
+            if (slots.getPlain(idx) == null && slots.compareAndSet(idx, null, inflater)) {
+                return;
+            }
+        }
+        discards.increment();
+        inflater.end();
+    }
+
+    private static int probeStart(final int length) {
+        // spread threads across the pool to reduce contention on the first slots
+        return (int) (Thread.currentThread().getId() % length);
+    }
+
+    /**
+     * Get the number of acquisitions which were satisfied by a pooled inflater.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of acquisitions which required a new inflater to be created.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the number of released inflaters which were ended because the pool was full.
+     *
+     * @return the discard count
+     */
+    public long getDiscardCount() {
+        return discards.sum();
+    }
+
+    /**
+     * Get the fraction of acquisitions which were satisfied by a pooled inflater.
+     *
+     * @return the hit rate, between 0.0 and 1.0 (or 0.0 if no acquisitions were made)
+     */
+    public double getHitRate() {
+        final long hits = getHitCount();
+        final long total = hits + getMissCount();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public String toString() {
+        return String.format("InflaterPool[size=%d,hits=%d,misses=%d,discards=%d]", slots.length(), getHitCount(), getMissCount(), getDiscardCount());
+    }
+}
@@ -0,0 +1,184 @@
+package org.wildfly.common.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.wildfly.common.Assert;
+
+/**
+ * A read-only channel which inflates the data of a deflated entry directly from the archive buffers.  Seeking
+ * forwards inflates and discards the intervening data; seeking backwards restarts from the beginning of the entry.
+ */
+final class InflatingEntryChannel implements SeekableByteChannel {
+    private static final int SKIP_BUFFER_SIZE = 0x10000;
+
+    private final ByteBuffer[] bufs;
+    private final long start;
+    private final long compSize;
+    private final long size;
+    private final InflaterPool pool;
+    private final ArchiveMetrics metrics;
+    /**
+     * The inflater, which is only acquired by the first read which inflates.
+     */
+    private Inflater inflater;
+    private boolean closed;
+    /**
+     * The number of compressed bytes given to the inflater so far.
+     */
+    private long consumed;
+    /**
+     * The number of uncompressed bytes produced by the inflater so far.
+     */
+    private long inflated;
+    private long position;
+    private ByteBuffer skipBuffer;
+
+    InflatingEntryChannel(final ByteBuffer[] bufs, final long start, final long compSize, final long size, final InflaterPool pool, final ArchiveMetrics metrics) {
+        this.bufs = bufs;
+        this.start = start;
+        this.compSize = compSize;
+        this.size = size;
+        this.pool = pool;
+        this.metrics = metrics;
+    }
+
+    public int read(final ByteBuffer dst) throws IOException {
+        checkOpen();
+        if (position >= size) {
+            return -1;
+        }
+        Inflater inflater = this.inflater;
+        if (inflater == null) {
+            this.inflater = inflater = pool.acquire();
+            if (metrics != null) {
+                metrics.recordInflation();
+            }
+        }
+        if (position < inflated) {
+            // rewind
+            inflater.reset();
+            consumed = 0;
+            inflated = 0;
+        }
+        if (position > inflated) {
+            skip(position - inflated);
+            if (position > inflated) {
+                return -1;
+            }
+        }
+        final int cnt = inflate(dst);
+        position += cnt;
+        return cnt == 0 && inflater.finished() ? -1 : cnt;
+    }
+
+    private void skip(long cnt) throws IOException {
+        ByteBuffer skipBuffer = this.skipBuffer;
+        if (skipBuffer == null) {
+            skipBuffer = this.skipBuffer = ByteBuffer.allocate(SKIP_BUFFER_SIZE);
+        }
+        while (cnt > 0) {
+            skipBuffer.clear();
+            if (cnt < SKIP_BUFFER_SIZE) {
+                skipBuffer.limit((int) cnt);
+            }
+            final int res = inflate(skipBuffer);
+            if (res == 0) {
+                return;
+            }
+            cnt -= res;
+        }
+    }
+
+    /**
+     * Inflate as much data as possible into the given buffer.
+     *
+     * @return the number of bytes inflated, which is 0 only if the buffer is full or the stream is finished
+     */
+    private int inflate(final ByteBuffer dst) throws IOException {
+        final Inflater inflater = this.inflater;
+        int total = 0;
+        try {
+            while (dst.hasRemaining() && ! inflater.finished()) {
+                final int cnt = inflater.inflate(dst);
+                total += cnt;
+                if (cnt == 0) {
+                    // the inflater may hold pending output even after all input is consumed, so only feed it
+                    // more input once it stops producing output
+                    if (inflater.needsDictionary()) {
+                        throw new IOException("Corrupted compression stream");
+                    }
+                    if (inflater.needsInput()) {
+                        if (consumed == compSize) {
+                            throw new IOException("Corrupted compression stream");
+                        }
+                        final long idx = start + consumed;
+                        final ByteBuffer buf = bufs[Archive.bufIdx(idx)].duplicate();
+                        buf.position(Archive.bufOffs(idx));
+                        buf.limit((int) Math.min(buf.capacity(), buf.position() + compSize - consumed));
+                        consumed += buf.remaining();
+                        inflater.setInput(buf);
+                    }
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IOException(e);
+        }
+        inflated += total;
+        if (metrics != null) {
+            metrics.recordInflated(total);
+        }
+        return total;
+    }
+
+    public int write(final ByteBuffer src) throws IOException {
+        checkOpen();
+        throw new NonWritableChannelException();
+    }
+
+    public long position() throws IOException {
+        checkOpen();
+        return position;
+    }
+
+    public SeekableByteChannel position(final long newPosition) throws IOException {
+        Assert.checkMinimumParameter("newPosition", 0L, newPosition);
+        checkOpen();
+        position = newPosition;
+        return this;
+    }
+
+    public long size() throws IOException {
+        checkOpen();
+        return size;
+    }
+
+    public SeekableByteChannel truncate(final long size) throws IOException {
+        checkOpen();
+        throw new NonWritableChannelException();
+    }
+
+    public boolean isOpen() {
+        return ! closed;
+    }
+
+    public void close() {
+        closed = true;
+        final Inflater inflater = this.inflater;
+        if (inflater != null) {
+            this.inflater = null;
+            pool.release(inflater);
+        }
+    }
+
+    private void checkOpen() throws ClosedChannelException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+    }
+}
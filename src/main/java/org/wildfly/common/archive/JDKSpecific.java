@@ -13,9 +13,14 @@ final class JDKSpecific {
     private JDKSpecific() {}
 
     static ByteBuffer inflate(final Inflater inflater, final ByteBuffer[] bufs, long offset, final int compSize, final int uncompSize) throws DataFormatException, IOException {
+        final ByteBuffer out = ByteBuffer.allocate(uncompSize);
+        inflate(inflater, bufs, offset, compSize, out);
+        return out.flip();
+    }
+
+    static int inflate(final Inflater inflater, final ByteBuffer[] bufs, long offset, final int compSize, final ByteBuffer out) throws DataFormatException, IOException {
         int cnt = 0;
-        byte[] out = new byte[uncompSize];
-        int op = 0;
+        final int start = out.position();
         while (cnt < compSize) {
             int rem = compSize - cnt;
             final ByteBuffer buf = bufs[Archive.bufIdx(offset + cnt)].duplicate();
@@ -24,12 +29,15 @@ final class JDKSpecific {
             cnt += buf.remaining();
             inflater.setInput(buf);
             do {
-                op += inflater.inflate(out, op, uncompSize - op);
-            } while (! inflater.needsInput());
+                if (inflater.inflate(out) == 0 && ! inflater.needsInput() && ! inflater.finished()) {
+                    // output is full (or a dictionary is needed) but there is more input
+                    throw new IOException("Corrupted compression stream");
+                }
+            } while (! inflater.needsInput() && ! inflater.finished());
         }
         if (! inflater.finished()) {
             throw new IOException("Corrupted compression stream");
         }
-        return ByteBuffer.wrap(out);
+        return out.position() - start;
     }
 }
@@ -5,7 +5,7 @@ import java.util.Arrays;
 /**
  * An index for archives between 64KB and 4GB in size.
  */
-final class LargeIndex extends Index {
+final class LargeIndex extends ArrayIndex {
     private final int[] table;
 
     LargeIndex(final int entries) {
@@ -15,18 +15,37 @@ final class LargeIndex extends Index {
         this.table = array;
     }
 
+    private LargeIndex(final int entries, final int[] table) {
+        super(entries, table.length);
+        this.table = table;
+    }
+
     long get(final int index) {
         final int val = table[index];
-        return val == -1 ? -1 : val & 0xffffffff;
+        return val == -1 ? -1 : val & 0xffff_ffffL;
     }
 
-    void put(int index, final long offset) {
+    public void put(final int hashCode, final long offset) {
+        int index = hashCode & getMask();
         final int[] table = this.table;
         int val = table[index];
         while (val != -1L) {
             index = index + 1 & getMask();
             val = table[index];
         }
-        table[index] = Math.toIntExact(offset);
+        table[index] = (int) offset;
+    }
+
+    ArrayIndex relocate(final long delta, final int entries, final long length) {
+        if (entryWidth(length) != 4 || entries > tableSize >> 1) {
+            return null;
+        }
+        final int[] table = this.table.clone();
+        for (int i = 0; i < table.length; i ++) {
+            if (table[i] != -1) {
+                table[i] = (int) (table[i] + delta);
+            }
+        }
+        return new LargeIndex(entries, table);
     }
 }
@@ -0,0 +1,30 @@
+package org.wildfly.common.archive;
+
+/**
+ * An index which uses linear probing over a table whose size is a power of two.
+ */
+abstract class LinearIndex extends Index {
+
+    LinearIndex(final int entries) {
+        super(entries);
+    }
+
+    LinearIndex(final int entries, final int tableSize) {
+        super(entries, tableSize);
+    }
+
+    int first(final int hashCode) {
+        final int index = hashCode & getMask();
+        return get(index) == -1 ? -1 : index;
+    }
+
+    int next(final int hashCode, int index) {
+        final int mask = getMask();
+        index = index + 1 & mask;
+        return index == (hashCode & mask) || get(index) == -1 ? -1 : index;
+    }
+
+    int getMask() {
+        return tableSize - 1;
+    }
+}
@@ -0,0 +1,39 @@
+package org.wildfly.common.archive;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A read-only index whose table is held in a (typically memory-mapped) buffer.
+ */
+final class MappedIndex extends LinearIndex {
+    private final ByteBuffer table;
+    private final int width;
+
+    MappedIndex(final int entries, final ByteBuffer table, final int width) {
+        super(entries);
+        this.table = table;
+        this.width = width;
+    }
+
+    MappedIndex(final int entries, final int tableSize, final ByteBuffer table, final int width) {
+        super(entries, tableSize);
+        this.table = table;
+        this.width = width;
+    }
+
+    long get(final int index) {
+        switch (width) {
+            case 2: {
+                final int val = table.getShort(index << 1);
+                return val == -1 ? -1 : val & 0xffff;
+            }
+            case 4: {
+                final int val = table.getInt(index << 2);
+                return val == -1 ? -1 : val & 0xffff_ffffL;
+            }
+            default: {
+                return table.getLong(index << 3);
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.wildfly.common.archive;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A secondary index which answers directory listing and name prefix queries.
+ * <p>
+ * Entries are kept in two orders: by name, so that all names sharing a prefix form a contiguous range, and by
+ * parent directory then name, so that the immediate children of each directory form a contiguous range.
+ */
+final class PrefixIndex {
+    private static final long[] NO_HANDLES = new long[0];
+
+    private final String[] names;
+    private final long[] handles;
+    private final long[] children;
+    /**
+     * Map of directory name (with trailing {@code /}, or empty for the root) to packed start and end offsets
+     * in {@link #children}.
+     */
+    private final Map<String, Long> directories;
+
+    PrefixIndex(final String[] names, final long[] handles) {
+        final int cnt = names.length;
+        final Item[] items = new Item[cnt];
+        for (int i = 0; i < cnt; i ++) {
+            items[i] = new Item(names[i], handles[i]);
+        }
+        Arrays.sort(items, Comparator.comparing(Item::getName));
+        this.names = new String[cnt];
+        this.handles = new long[cnt];
+        for (int i = 0; i < cnt; i ++) {
+            this.names[i] = items[i].name;
+            this.handles[i] = items[i].handle;
+        }
+        // stable sort, so names stay ordered within each directory
+        Arrays.sort(items, Comparator.comparing(Item::getParent));
+        children = new long[cnt];
+        directories = new HashMap<>();
+        int start = 0;
+        for (int i = 0; i < cnt; i ++) {
+            children[i] = items[i].handle;
+            if (i + 1 == cnt || ! items[i + 1].parent.equals(items[start].parent)) {
+                directories.put(items[start].parent, Long.valueOf((long) start << 32 | i + 1));
+                start = i + 1;
+            }
+        }
+    }
+
+    long[] listDirectory(String directory) {
+        if (! directory.isEmpty() && ! directory.endsWith("/")) {
+            directory = directory + "/";
+        }
+        final Long range = directories.get(directory);
+        if (range == null) {
+            return NO_HANDLES;
+        }
+        final long val = range.longValue();
+        return Arrays.copyOfRange(children, (int) (val >>> 32), (int) val);
+    }
+
+    long[] entriesWithPrefix(final String prefix) {
+        final String[] names = this.names;
+        // find the first name which is not less than the prefix
+        int low = 0;
+        int high = names.length;
+        while (low < high) {
+            final int mid = low + high >>> 1;
+            if (names[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int end = low;
+        while (end < names.length && names[end].startsWith(prefix)) {
+            end ++;
+        }
+        return low == end ? NO_HANDLES : Arrays.copyOfRange(handles, low, end);
+    }
+
+    static String parentOf(final String name) {
+        final int end = name.endsWith("/") ? name.length() - 1 : name.length();
+        return name.substring(0, name.lastIndexOf('/', end - 1) + 1);
+    }
+
+    static final class Item {
+        final String name;
+        final String parent;
+        final long handle;
+
+        Item(final String name, final long handle) {
+            this.name = name;
+            this.parent = parentOf(name);
+            this.handle = handle;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getParent() {
+            return parent;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.wildfly.common.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+import org.wildfly.common.Assert;
+
+/**
+ * A read-only channel over the data of a stored (uncompressed) entry, which reads directly from the archive buffers.
+ */
+final class StoredEntryChannel implements SeekableByteChannel {
+    private final ByteBuffer[] bufs;
+    private final long start;
+    private final long size;
+    private long position;
+    private boolean closed;
+
+    StoredEntryChannel(final ByteBuffer[] bufs, final long start, final long size) {
+        this.bufs = bufs;
+        this.start = start;
+        this.size = size;
+    }
+
+    public int read(final ByteBuffer dst) throws IOException {
+        checkOpen();
+        final long rem = size - position;
+        if (rem <= 0) {
+            return -1;
+        }
+        final int cnt = (int) Math.min(rem, dst.remaining());
+        Archive.copyBytes(bufs, start + position, cnt, dst);
+        position += cnt;
+        return cnt;
+    }
+
+    public int write(final ByteBuffer src) throws IOException {
+        checkOpen();
+        throw new NonWritableChannelException();
+    }
+
+    public long position() throws IOException {
+        checkOpen();
+        return position;
+    }
+
+    public SeekableByteChannel position(final long newPosition) throws IOException {
+        Assert.checkMinimumParameter("newPosition", 0L, newPosition);
+        checkOpen();
+        position = newPosition;
+        return this;
+    }
+
+    public long size() throws IOException {
+        checkOpen();
+        return size;
+    }
+
+    public SeekableByteChannel truncate(final long size) throws IOException {
+        checkOpen();
+        throw new NonWritableChannelException();
+    }
+
+    public boolean isOpen() {
+        return ! closed;
+    }
+
+    public void close() {
+        closed = true;
+    }
+
+    private void checkOpen() throws ClosedChannelException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+    }
+}
@@ -5,7 +5,7 @@ import java.util.Arrays;
 /**
  * An index for archives less than 64KB in size.
  */
-final class TinyIndex extends Index {
+final class TinyIndex extends ArrayIndex {
     private final short[] table;
 
     TinyIndex(final int entries) {
@@ -15,12 +15,18 @@ final class TinyIndex extends Index {
         this.table = array;
     }
 
+    private TinyIndex(final int entries, final short[] table) {
+        super(entries, table.length);
+        this.table = table;
+    }
+
     long get(final int index) {
         final int val = table[index];
         return val == -1 ? -1 : val & 0xffff;
     }
 
-    void put(int index, final long offset) {
+    public void put(final int hashCode, final long offset) {
+        int index = hashCode & getMask();
         final short[] table = this.table;
         int val = table[index];
         while (val != -1L) {
@@ -29,4 +35,17 @@ final class TinyIndex extends Index {
         }
         table[index] = (short) offset;
     }
+
+    ArrayIndex relocate(final long delta, final int entries, final long length) {
+        if (entryWidth(length) != 2 || entries > tableSize >> 1) {
+            return null;
+        }
+        final short[] table = this.table.clone();
+        for (int i = 0; i < table.length; i ++) {
+            if (table[i] != -1) {
+                table[i] = (short) (table[i] + delta);
+            }
+        }
+        return new TinyIndex(entries, table);
+    }
 }
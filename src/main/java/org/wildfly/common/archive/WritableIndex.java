@@ -0,0 +1,14 @@
+package org.wildfly.common.archive;
+
+/**
+ * The write side of an index which is built by adding directory entries to it.
+ */
+interface WritableIndex {
+    /**
+     * Add an entry to the index.
+     *
+     * @param hashCode the hash code of the entry name
+     * @param offset the entry offset
+     */
+    void put(int hashCode, long offset);
+}
@@ -20,11 +20,18 @@ package org.wildfly.common.iteration;
 
 import static org.wildfly.common._private.CommonMessages.msg;
 
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
 import java.util.NoSuchElementException;
 
+import org.wildfly.common.codec.Base64Alphabet;
+
 /**
  */
 abstract class Base64DecodingByteIterator extends ByteIterator {
+    private static final int BLOCK_SIZE = 4 * 1024;
+    private static final byte[] STANDARD_TABLE = table(Base64Alphabet.STANDARD);
+
     private final CodePointIterator iter;
     private final boolean requirePadding;
     // states:
@@ -45,6 +52,7 @@ abstract class Base64DecodingByteIterator extends ByteIterator {
     private int state = 0;
     private int o0, o1, o2;
     private int offset;
+    private char[] src;
 
     Base64DecodingByteIterator(final CodePointIterator iter, final boolean requirePadding) {
         this.iter = iter;
@@ -121,6 +129,79 @@ abstract class Base64DecodingByteIterator extends ByteIterator {
 
     abstract int calc2(int b2, int b3);
 
+    /**
+     * Get the decoding table of the alphabet for the characters {@code 0} through {@code 0xff}.
+     *
+     * @return the table
+     */
+    abstract byte[] decodeTable();
+
+    /**
+     * Decode whole four-character groups using the given decoding table, stopping before the first group which
+     * contains a character that is not in the table.
+     *
+     * @param table the decoding table
+     * @param src the source characters
+     * @param cnt the number of source characters, which is a multiple of four
+     * @param dst the destination bytes
+     * @param offs the offset into the destination array
+     * @return the number of characters decoded
+     */
+    abstract int decodeBlocks(byte[] table, char[] src, int cnt, byte[] dst, int offs);
+
+    static byte[] table(final Base64Alphabet alphabet) {
+        if (alphabet == Base64Alphabet.STANDARD && STANDARD_TABLE != null) {
+            return STANDARD_TABLE;
+        }
+        final byte[] table = new byte[0x100];
+        Arrays.fill(table, (byte) -1);
+        for (int i = 0; i < 0x100; i ++) {
+            final int d = alphabet.decode(i);
+            if (d >= 0 && d < 64 && i != '=') {
+                table[i] = (byte) d;
+            }
+        }
+        return table;
+    }
+
+    public ByteArrayOutputStream drainTo(final ByteArrayOutputStream stream) {
+        final byte[] buf = new byte[BLOCK_SIZE / 4 * 3];
+        int cnt;
+        while ((cnt = drain(buf)) > 0) {
+            stream.write(buf, 0, cnt);
+        }
+        return stream;
+    }
+
+    public int drain(final byte[] dst, final int offs, final int len) {
+        int cnt = 0;
+        while (cnt < len) {
+            if (state == 0 && len - cnt >= 3) {
+                // decode whole groups in bulk; padding, invalid characters and a trailing partial group are left
+                // to the state machine
+                char[] src = this.src;
+                if (src == null) {
+                    src = this.src = new char[BLOCK_SIZE];
+                }
+                final int peeked = iter.peekChars(src, 0, Math.min((len - cnt) / 3, BLOCK_SIZE / 4) * 4) & ~3;
+                if (peeked > 0) {
+                    final int decoded = decodeBlocks(decodeTable(), src, peeked, dst, offs + cnt);
+                    if (decoded > 0) {
+                        iter.skipChars(decoded);
+                        cnt += decoded / 4 * 3;
+                        offset += decoded / 4 * 3;
+                        continue;
+                    }
+                }
+            }
+            if (! hasNext()) {
+                break;
+            }
+            dst[offs + cnt ++] = (byte) next();
+        }
+        return cnt;
+    }
+
     public int next() {
         if (! hasNext()) {
             throw new NoSuchElementException();
@@ -21,16 +21,20 @@ package org.wildfly.common.iteration;
 import java.util.NoSuchElementException;
 
 import org.wildfly.common.Assert;
+import org.wildfly.common.codec.Base64Alphabet;
 
 /**
  */
 abstract class Base64EncodingIterator extends CodePointIterator {
+    private static final int BLOCK_SIZE = 3 * 1024;
+    private static final char[] STANDARD_TABLE = table(Base64Alphabet.STANDARD);
 
     private final ByteIterator iter;
     private final boolean addPadding;
     private int c0, c1, c2, c3;
     private int state;
     private int offset;
+    private byte[] src;
 
     Base64EncodingIterator(final ByteIterator iter, final boolean addPadding) {
         this.iter = iter;
@@ -71,6 +75,102 @@ abstract class Base64EncodingIterator extends CodePointIterator {
 
     abstract int calc3(int b2);
 
+    /**
+     * Get the encoding table of the alphabet, if all of its characters are in the basic multilingual plane.
+     *
+     * @return the table, or {@code null} if the alphabet cannot be encoded using a table
+     */
+    abstract char[] encodeTable();
+
+    /**
+     * Encode whole three-byte groups using the given encoding table.
+     *
+     * @param table the encoding table
+     * @param src the source bytes
+     * @param cnt the number of source bytes, which is a multiple of three
+     * @param dst the destination characters
+     * @param offs the offset into the destination array
+     */
+    abstract void encodeBlocks(char[] table, byte[] src, int cnt, char[] dst, int offs);
+
+    static char[] table(final Base64Alphabet alphabet) {
+        if (alphabet == Base64Alphabet.STANDARD && STANDARD_TABLE != null) {
+            return STANDARD_TABLE;
+        }
+        final char[] table = new char[64];
+        for (int i = 0; i < 64; i ++) {
+            final int cp = alphabet.encode(i);
+            if (! Character.isBmpCodePoint(cp)) {
+                return null;
+            }
+            table[i] = (char) cp;
+        }
+        return table;
+    }
+
+    public StringBuilder drainTo(final StringBuilder b) {
+        if (encodeTable() == null) {
+            return super.drainTo(b);
+        }
+        final char[] buf = new char[BLOCK_SIZE / 3 * 4];
+        int cnt;
+        while ((cnt = drainChars(buf, 0, buf.length)) > 0) {
+            b.append(buf, 0, cnt);
+        }
+        return b;
+    }
+
+    int drainChars(final char[] dst, final int offs, final int len) {
+        final char[] table = encodeTable();
+        if (table == null) {
+            return super.drainChars(dst, offs, len);
+        }
+        int cnt = 0;
+        while (cnt < len && hasNext()) {
+            if (state == 0 && len - cnt >= 4) {
+                // encode whole groups in bulk; a partial group is completed and left to the state machine
+                byte[] src = this.src;
+                if (src == null) {
+                    src = this.src = new byte[BLOCK_SIZE];
+                }
+                final int n = iter.drain(src, 0, Math.min((len - cnt) / 4, BLOCK_SIZE / 3) * 3);
+                final int whole = n - n % 3;
+                encodeBlocks(table, src, whole, dst, offs + cnt);
+                cnt += whole / 3 * 4;
+                offset += whole / 3 * 4;
+                if (whole < n) {
+                    loadGroup(src[whole] & 0xff, n - whole == 2 ? src[whole + 1] & 0xff : -1);
+                }
+            } else {
+                dst[offs + cnt ++] = (char) next();
+            }
+        }
+        return cnt;
+    }
+
+    private void loadGroup(final int b0, int b1) {
+        if (b1 == -1) {
+            if (! iter.hasNext()) {
+                c0 = calc0(b0);
+                c1 = calc1(b0, 0);
+                state = 5;
+                return;
+            }
+            b1 = iter.next();
+        }
+        c0 = calc0(b0);
+        c1 = calc1(b0, b1);
+        if (! iter.hasNext()) {
+            c2 = calc2(b1, 0);
+            state = 9;
+            return;
+        }
+        final int b2 = iter.next();
+        c2 = calc2(b1, b2);
+        c3 = calc3(b2);
+        state = 1;
+    }
+
     public int next() throws NoSuchElementException {
         if (! hasNext()) throw new NoSuchElementException();
         offset++;
@@ -24,6 +24,7 @@ import org.wildfly.common.codec.Base64Alphabet;
  */
 final class BigEndianBase64EncodingIterator extends Base64EncodingIterator {
     private final Base64Alphabet alphabet;
+    private char[] table;
 
     BigEndianBase64EncodingIterator(final ByteIterator iter, final boolean addPadding, final Base64Alphabet alphabet) {
         super(iter, addPadding);
@@ -49,4 +50,24 @@ final class BigEndianBase64EncodingIterator extends Base64EncodingIterator {
         // d3 = r2[5..0]
         return alphabet.encode(b2 & 0x3f);
     }
+
+    char[] encodeTable() {
+        char[] table = this.table;
+        if (table == null) {
+            table = this.table = table(alphabet);
+        }
+        return table;
+    }
+
+    void encodeBlocks(final char[] table, final byte[] src, final int cnt, final char[] dst, final int offs) {
+        for (int i = 0, j = offs; i < cnt; i += 3, j += 4) {
+            final int b0 = src[i] & 0xff;
+            final int b1 = src[i + 1] & 0xff;
+            final int b2 = src[i + 2] & 0xff;
+            dst[j] = table[(b0 >> 2) & 0x3f];
+            dst[j + 1] = table[(b0 << 4 | b1 >> 4) & 0x3f];
+            dst[j + 2] = table[(b1 << 2 | b2 >> 6) & 0x3f];
+            dst[j + 3] = table[b2 & 0x3f];
+        }
+    }
 }
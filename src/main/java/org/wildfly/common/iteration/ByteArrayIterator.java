@@ -19,6 +19,12 @@
 package org.wildfly.common.iteration;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.Signature;
@@ -28,11 +34,19 @@ import java.util.NoSuchElementException;
 
 import javax.crypto.Mac;
 
+import org.wildfly.common.Assert;
 import org.wildfly.common.bytes.ByteStringBuilder;
 
 /**
  */
 final class ByteArrayIterator extends ByteIterator {
+    private static final VarHandle BE_SHORT = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle BE_INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle BE_LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LE_SHORT = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LE_INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LE_LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
     private final int len;
     private final byte[] bytes;
     private final int offs;
@@ -77,6 +91,60 @@ final class ByteArrayIterator extends ByteIterator {
         return idx;
     }
 
+    public int getBE16() throws NoSuchElementException {
+        if (len - idx < 2) return super.getBE16();
+        try {
+            return (short) BE_SHORT.get(bytes, offs + idx) & 0xffff;
+        } finally {
+            idx += 2;
+        }
+    }
+
+    public int getBE32() throws NoSuchElementException {
+        if (len - idx < 4) return super.getBE32();
+        try {
+            return (int) BE_INT.get(bytes, offs + idx);
+        } finally {
+            idx += 4;
+        }
+    }
+
+    public long getBE64() throws NoSuchElementException {
+        if (len - idx < 8) return super.getBE64();
+        try {
+            return (long) BE_LONG.get(bytes, offs + idx);
+        } finally {
+            idx += 8;
+        }
+    }
+
+    public int getLE16() throws NoSuchElementException {
+        if (len - idx < 2) return super.getLE16();
+        try {
+            return (short) LE_SHORT.get(bytes, offs + idx) & 0xffff;
+        } finally {
+            idx += 2;
+        }
+    }
+
+    public int getLE32() throws NoSuchElementException {
+        if (len - idx < 4) return super.getLE32();
+        try {
+            return (int) LE_INT.get(bytes, offs + idx);
+        } finally {
+            idx += 4;
+        }
+    }
+
+    public long getLE64() throws NoSuchElementException {
+        if (len - idx < 8) return super.getLE64();
+        try {
+            return (long) LE_LONG.get(bytes, offs + idx);
+        } finally {
+            idx += 8;
+        }
+    }
+
     public void update(final MessageDigest digest) throws IllegalStateException {
         digest.update(bytes, offs + idx, len - idx);
         idx = len;
@@ -116,6 +184,14 @@ final class ByteArrayIterator extends ByteIterator {
         return stream;
     }
 
+    public long transferTo(final OutputStream stream) throws IOException {
+        Assert.checkNotNullParam("stream", stream);
+        final int cnt = len - idx;
+        stream.write(bytes, offs + idx, cnt);
+        idx = len;
+        return cnt;
+    }
+
     public byte[] drain() {
         try {
             return Arrays.copyOfRange(bytes, offs + idx, offs + len);
@@ -126,7 +202,20 @@ final class ByteArrayIterator extends ByteIterator {
 
     public int drain(final byte[] dst, final int offs, final int dlen) {
         int cnt = Math.min(len - idx, dlen);
-        System.arraycopy(bytes, offs + idx, dst, offs, cnt);
+        System.arraycopy(bytes, this.offs + idx, dst, offs, cnt);
+        idx += cnt;
+        return cnt;
+    }
+
+    public int drain(final ByteBuffer dst) {
+        final int cnt = Math.min(len - idx, dst.remaining());
+        dst.put(bytes, offs + idx, cnt);
+        idx += cnt;
+        return cnt;
+    }
+
+    public long skip(final long n) {
+        final int cnt = (int) Math.max(0, Math.min(n, len - idx));
         idx += cnt;
         return cnt;
     }
@@ -145,6 +234,43 @@ final class ByteArrayIterator extends ByteIterator {
         return s;
     }
 
+    int appendAscii(final StringBuilder b) {
+        final int start = offs + idx;
+        final int end = offs + len;
+        int i = start;
+        // test eight bytes at a time for a high bit
+        while (i <= end - 8 && ((long) LE_LONG.get(bytes, i) & 0x8080808080808080L) == 0) {
+            i += 8;
+        }
+        while (i < end && bytes[i] >= 0) {
+            i ++;
+        }
+        final int cnt = i - start;
+        if (cnt > 0) {
+            b.ensureCapacity(b.length() + cnt);
+            for (int j = start; j < i; j ++) {
+                b.append((char) bytes[j]);
+            }
+            idx += cnt;
+        }
+        return cnt;
+    }
+
+    int matchAscii(final String s, final int from) {
+        final int cnt = Math.min(len - idx, s.length() - from);
+        final int start = offs + idx;
+        int i = 0;
+        while (i < cnt) {
+            final byte b = bytes[start + i];
+            if (b < 0 || b != s.charAt(from + i)) {
+                break;
+            }
+            i ++;
+        }
+        idx += i;
+        return i;
+    }
+
     public ByteStringBuilder appendTo(final ByteStringBuilder builder) {
         builder.append(bytes, offs + idx, len - idx);
         idx = len;
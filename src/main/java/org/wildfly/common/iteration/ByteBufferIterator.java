@@ -18,9 +18,14 @@
 
 package org.wildfly.common.iteration;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
 import java.util.NoSuchElementException;
 
+import org.wildfly.common.Assert;
+
 /**
  */
 final class ByteBufferIterator extends ByteIterator {
@@ -64,4 +69,109 @@ final class ByteBufferIterator extends ByteIterator {
     public long getIndex() {
         return buffer.position() - initialPosition;
     }
+
+    public int getBE16() throws NoSuchElementException {
+        if (buffer.remaining() < 2) return super.getBE16();
+        final short v = buffer.getShort();
+        return (buffer.order() == ByteOrder.BIG_ENDIAN ? v : Short.reverseBytes(v)) & 0xffff;
+    }
+
+    public int getBE32() throws NoSuchElementException {
+        if (buffer.remaining() < 4) return super.getBE32();
+        final int v = buffer.getInt();
+        return buffer.order() == ByteOrder.BIG_ENDIAN ? v : Integer.reverseBytes(v);
+    }
+
+    public long getBE64() throws NoSuchElementException {
+        if (buffer.remaining() < 8) return super.getBE64();
+        final long v = buffer.getLong();
+        return buffer.order() == ByteOrder.BIG_ENDIAN ? v : Long.reverseBytes(v);
+    }
+
+    public int getLE16() throws NoSuchElementException {
+        if (buffer.remaining() < 2) return super.getLE16();
+        final short v = buffer.getShort();
+        return (buffer.order() == ByteOrder.LITTLE_ENDIAN ? v : Short.reverseBytes(v)) & 0xffff;
+    }
+
+    public int getLE32() throws NoSuchElementException {
+        if (buffer.remaining() < 4) return super.getLE32();
+        final int v = buffer.getInt();
+        return buffer.order() == ByteOrder.LITTLE_ENDIAN ? v : Integer.reverseBytes(v);
+    }
+
+    public long getLE64() throws NoSuchElementException {
+        if (buffer.remaining() < 8) return super.getLE64();
+        final long v = buffer.getLong();
+        return buffer.order() == ByteOrder.LITTLE_ENDIAN ? v : Long.reverseBytes(v);
+    }
+
+    public int drain(final byte[] dst, final int offs, final int len) {
+        final int cnt = Math.min(buffer.remaining(), len);
+        buffer.get(dst, offs, cnt);
+        return cnt;
+    }
+
+    public int drain(final ByteBuffer dst) {
+        final int cnt = Math.min(buffer.remaining(), dst.remaining());
+        final int pos = buffer.position();
+        dst.put(dst.position(), buffer, pos, cnt);
+        dst.position(dst.position() + cnt);
+        buffer.position(pos + cnt);
+        return cnt;
+    }
+
+    public long skip(final long n) {
+        final int cnt = (int) Math.max(0, Math.min(n, buffer.remaining()));
+        buffer.position(buffer.position() + cnt);
+        return cnt;
+    }
+
+    public long transferTo(final WritableByteChannel channel) throws IOException {
+        Assert.checkNotNullParam("channel", channel);
+        final int cnt = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        return cnt;
+    }
+
+    int appendAscii(final StringBuilder b) {
+        final ByteBuffer buffer = this.buffer;
+        final int start = buffer.position();
+        final int end = buffer.limit();
+        int i = start;
+        // test eight bytes at a time for a high bit; the byte order does not matter
+        while (i <= end - 8 && (buffer.getLong(i) & 0x8080808080808080L) == 0) {
+            i += 8;
+        }
+        while (i < end && buffer.get(i) >= 0) {
+            i ++;
+        }
+        final int cnt = i - start;
+        if (cnt > 0) {
+            b.ensureCapacity(b.length() + cnt);
+            for (int j = start; j < i; j ++) {
+                b.append((char) buffer.get(j));
+            }
+            buffer.position(i);
+        }
+        return cnt;
+    }
+
+    int matchAscii(final String s, final int from) {
+        final ByteBuffer buffer = this.buffer;
+        final int start = buffer.position();
+        final int cnt = Math.min(buffer.remaining(), s.length() - from);
+        int i = 0;
+        while (i < cnt) {
+            final byte b = buffer.get(start + i);
+            if (b < 0 || b != s.charAt(from + i)) {
+                break;
+            }
+            i ++;
+        }
+        buffer.position(start + i);
+        return i;
+    }
 }
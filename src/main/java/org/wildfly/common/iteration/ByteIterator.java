@@ -19,8 +19,13 @@
 package org.wildfly.common.iteration;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.Signature;
@@ -405,6 +410,29 @@ public abstract class ByteIterator implements BiDirIntIterator, IndexIterator {
         return new IntTableTranslatingByteIterator(this, table);
     }
 
+    /**
+     * Consume the upcoming run of ASCII bytes, appending them to the given string builder.  Iterators without
+     * direct access to their contents consume nothing.
+     *
+     * @param b the string builder
+     * @return the number of bytes consumed
+     */
+    int appendAscii(StringBuilder b) {
+        return 0;
+    }
+
+    /**
+     * Consume the upcoming run of ASCII bytes which are equal to the characters of the given string, starting at
+     * the given index.  Iterators without direct access to their contents consume nothing.
+     *
+     * @param s the string to compare with
+     * @param from the index of the first character to compare
+     * @return the number of bytes consumed
+     */
+    int matchAscii(String s, int from) {
+        return 0;
+    }
+
     /**
      * Drain all the remaining bytes in this iterator to the given stream.
      *
@@ -418,6 +446,52 @@ public abstract class ByteIterator implements BiDirIntIterator, IndexIterator {
         return stream;
     }
 
+    /**
+     * Transfer all the remaining bytes in this iterator to the given stream.  The bytes are written in chunks
+     * through a reused buffer, so arbitrarily large content never has to be held in memory at once.
+     *
+     * @param stream the stream (must not be {@code null})
+     * @return the number of bytes transferred
+     * @throws IOException if writing to the stream fails
+     */
+    public long transferTo(OutputStream stream) throws IOException {
+        Assert.checkNotNullParam("stream", stream);
+        final byte[] buffer = OP_BUFFER.get();
+        long total = 0;
+        int cnt = drain(buffer);
+        while (cnt > 0) {
+            stream.write(buffer, 0, cnt);
+            total += cnt;
+            cnt = drain(buffer);
+        }
+        return total;
+    }
+
+    /**
+     * Transfer all the remaining bytes in this iterator to the given channel, which must be in blocking mode.  The
+     * bytes are written in chunks through a reused buffer, so arbitrarily large content never has to be held in
+     * memory at once.
+     *
+     * @param channel the channel (must not be {@code null})
+     * @return the number of bytes transferred
+     * @throws IOException if writing to the channel fails
+     */
+    public long transferTo(WritableByteChannel channel) throws IOException {
+        Assert.checkNotNullParam("channel", channel);
+        final byte[] buffer = OP_BUFFER.get();
+        long total = 0;
+        int cnt = drain(buffer);
+        while (cnt > 0) {
+            final ByteBuffer buf = ByteBuffer.wrap(buffer, 0, cnt);
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+            total += cnt;
+            cnt = drain(buffer);
+        }
+        return total;
+    }
+
     /**
      * Drain all the remaining bytes in this iterator.
      *
@@ -493,6 +567,43 @@ public abstract class ByteIterator implements BiDirIntIterator, IndexIterator {
         return len;
     }
 
+    /**
+     * Drains up to {@code dst.remaining()} bytes from this iterator into the given buffer, advancing its position.
+     *
+     * @param dst the buffer into which the data is drained (must not be {@code null})
+     * @return the total number of bytes drained into {@code dst}, always greater or equal to {@code 0}
+     */
+    public int drain(ByteBuffer dst) {
+        Assert.checkNotNullParam("dst", dst);
+        if (dst.hasArray()) {
+            final int pos = dst.position();
+            final int cnt = drain(dst.array(), dst.arrayOffset() + pos, dst.remaining());
+            dst.position(pos + cnt);
+            return cnt;
+        }
+        int cnt = 0;
+        while (dst.hasRemaining() && hasNext()) {
+            dst.put((byte) next());
+            cnt ++;
+        }
+        return cnt;
+    }
+
+    /**
+     * Skip over up to {@code n} bytes.
+     *
+     * @param n the number of bytes to skip
+     * @return the number of bytes skipped, which is less than {@code n} only if the end of the iterator was reached
+     */
+    public long skip(long n) {
+        long cnt = 0;
+        while (cnt < n && hasNext()) {
+            next();
+            cnt ++;
+        }
+        return cnt;
+    }
+
     /**
      * Convenience method to directly drain a certain number of bytes to a UTF-8 string.  If fewer than {@code count}
      * bytes are available, only the available bytes will be used to construct the string.
@@ -584,6 +695,37 @@ public abstract class ByteIterator implements BiDirIntIterator, IndexIterator {
         return new ByteBufferIterator(buffer);
     }
 
+    /**
+     * Get a byte iterator which reads from an input stream.  The stream is read on demand into a window of the given
+     * size, so arbitrarily long streams are iterated in constant memory.  The iterator can be moved backwards by only
+     * a limited number of bytes (at least 64).  The stream is not closed by the iterator.  Any {@link IOException}
+     * which is thrown by the stream is rethrown as an {@link UncheckedIOException}.
+     *
+     * @param stream the input stream (must not be {@code null})
+     * @param bufferSize the number of bytes to read from the stream at once (must be at least 1)
+     * @return the byte iterator (not {@code null})
+     */
+    public static ByteIterator ofInputStream(InputStream stream, int bufferSize) {
+        Assert.checkNotNullParam("stream", stream);
+        Assert.checkMinimumParameter("bufferSize", 1, bufferSize);
+        return new InputStreamByteIterator(stream, bufferSize);
+    }
+
+    /**
+     * Get a byte iterator which reads from a channel.  The channel must be in blocking mode.  The channel is read on
+     * demand into a window of a default size, so arbitrarily long channels are iterated in constant memory.  The
+     * iterator can be moved backwards by only a limited number of bytes (at least 64).  The channel is not closed by
+     * the iterator.  Any {@link IOException} which is thrown by the channel is rethrown as an
+     * {@link UncheckedIOException}.
+     *
+     * @param channel the channel (must not be {@code null})
+     * @return the byte iterator (not {@code null})
+     */
+    public static ByteIterator ofChannel(ReadableByteChannel channel) {
+        Assert.checkNotNullParam("channel", channel);
+        return new ChannelByteIterator(channel, OP_BUFFER_SIZE);
+    }
+
     /**
      * Get a concatenated byte iterator.  The array and the byte iterators in the array must not be modified or
      * inconsistent behavior will result.
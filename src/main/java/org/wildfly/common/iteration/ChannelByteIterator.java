@@ -0,0 +1,48 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.common.iteration;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ */
+final class ChannelByteIterator extends WindowedByteIterator {
+    private final ReadableByteChannel channel;
+    private ByteBuffer window;
+
+    ChannelByteIterator(final ReadableByteChannel channel, final int bufferSize) {
+        super(bufferSize);
+        this.channel = channel;
+    }
+
+    int read(final byte[] dst, final int offs, final int len) throws IOException {
+        ByteBuffer window = this.window;
+        if (window == null || window.array() != dst) {
+            window = this.window = ByteBuffer.wrap(dst);
+        }
+        window.limit(offs + len).position(offs);
+        int cnt;
+        do {
+            cnt = channel.read(window);
+        } while (cnt == 0);
+        return cnt;
+    }
+}
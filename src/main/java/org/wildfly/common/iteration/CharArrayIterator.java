@@ -75,4 +75,41 @@ final class CharArrayIterator extends CodePointIterator {
     public long getIndex() {
         return offset;
     }
+
+    int peekChars(final char[] dst, final int offs, final int len) {
+        final int cnt = Math.min(this.len - idx, len);
+        System.arraycopy(chars, this.offs + idx, dst, offs, cnt);
+        return cnt;
+    }
+
+    int drainAscii(final byte[] dst, final int offs, final int len) {
+        final int cnt = Math.min(this.len - idx, len);
+        final int start = this.offs + idx;
+        int i = 0;
+        char c;
+        while (i < cnt && (c = chars[start + i]) < 0x80) {
+            dst[offs + i ++] = (byte) c;
+        }
+        idx += i;
+        offset += i;
+        return i;
+    }
+
+    int drainChars(final char[] dst, final int offs, final int len) {
+        final int start = this.offs + idx;
+        int cnt = Math.min(this.len - idx, len);
+        if (cnt > 1 && cnt < this.len - idx && Character.isHighSurrogate(chars[start + cnt - 1])) {
+            // do not split a surrogate pair
+            cnt --;
+        }
+        System.arraycopy(chars, start, dst, offs, cnt);
+        offset += Character.codePointCount(chars, start, cnt);
+        idx += cnt;
+        return cnt;
+    }
+
+    void skipChars(final int cnt) {
+        idx += cnt;
+        offset += cnt;
+    }
 }
@@ -18,9 +18,12 @@
 
 package org.wildfly.common.iteration;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.NoSuchElementException;
 import java.util.function.IntPredicate;
 
+import org.wildfly.common.Assert;
 import org.wildfly.common.codec.Base32Alphabet;
 import org.wildfly.common.codec.Base64Alphabet;
 
@@ -29,6 +32,14 @@ import org.wildfly.common.codec.Base64Alphabet;
  */
 public abstract class CodePointIterator implements BiDirIntIterator, IndexIterator {
 
+    private static final int OP_BUFFER_SIZE = 8192;
+
+    private static final ThreadLocal<char[]> OP_BUFFER = new ThreadLocal<char[]>() {
+        protected char[] initialValue() {
+            return new char[OP_BUFFER_SIZE];
+        }
+    };
+
     CodePointIterator() {
     }
 
@@ -167,6 +178,46 @@ public abstract class CodePointIterator implements BiDirIntIterator, IndexIterat
         return b;
     }
 
+    /**
+     * Drain all the remaining code points in this iterator to the given writer.  The code points are written in
+     * chunks through a reused buffer, so the encoded form of arbitrarily large content never has to be held in
+     * memory at once.
+     *
+     * @param writer the writer (must not be {@code null})
+     * @return the same writer
+     * @throws IOException if writing to the writer fails
+     */
+    public Writer drainTo(Writer writer) throws IOException {
+        Assert.checkNotNullParam("writer", writer);
+        final char[] buffer = OP_BUFFER.get();
+        int cnt = drainChars(buffer, 0, buffer.length);
+        while (cnt > 0) {
+            writer.write(buffer, 0, cnt);
+            cnt = drainChars(buffer, 0, buffer.length);
+        }
+        return writer;
+    }
+
+    /**
+     * Drain up to {@code len} characters into the given array.  A code point is never split, so fewer characters
+     * may be drained than there is room for; at least two characters of room are needed to always make progress.
+     *
+     * @param dst the destination array
+     * @param offs the offset into the destination array
+     * @param len the maximum number of characters to drain
+     * @return the number of characters drained
+     */
+    int drainChars(char[] dst, int offs, int len) {
+        int cnt = 0;
+        while (cnt < len && hasNext()) {
+            if (cnt == len - 1 && ! Character.isBmpCodePoint(peekNext())) {
+                break;
+            }
+            cnt += Character.toChars(next(), dst, offs + cnt);
+        }
+        return cnt;
+    }
+
     /**
      * Skip all the remaining code points in this iterator.
      * (Useful in combination with {@link #delimitedBy(int...)})
@@ -178,6 +229,42 @@ public abstract class CodePointIterator implements BiDirIntIterator, IndexIterat
         return this;
     }
 
+    /**
+     * Copy up to {@code len} of the upcoming characters to the given array without consuming them.  Iterators
+     * which are not backed by characters copy nothing.
+     *
+     * @param dst the destination array
+     * @param offs the offset into the destination array
+     * @param len the maximum number of characters to copy
+     * @return the number of characters copied
+     */
+    int peekChars(char[] dst, int offs, int len) {
+        return 0;
+    }
+
+    /**
+     * Consume characters which were copied by {@link #peekChars(char[], int, int)}, none of which may be
+     * part of a surrogate pair.
+     *
+     * @param cnt the number of characters to consume
+     */
+    void skipChars(int cnt) {
+        throw Assert.unsupported();
+    }
+
+    /**
+     * Consume the upcoming run of ASCII characters, up to {@code len}, storing them as bytes in the given array.
+     * Iterators which are not backed by characters consume nothing.
+     *
+     * @param dst the destination array
+     * @param offs the offset into the destination array
+     * @param len the maximum number of characters to consume
+     * @return the number of characters consumed
+     */
+    int drainAscii(byte[] dst, int offs, int len) {
+        return 0;
+    }
+
     /**
      * Drain all the remaining code points in this iterator to the given string builder,
      * inserting the given prefix and delimiter before and after every {@code n} code points,
@@ -18,6 +18,7 @@
 
 package org.wildfly.common.iteration;
 
+import java.nio.ByteBuffer;
 import java.util.NoSuchElementException;
 
 /**
@@ -84,6 +85,36 @@ final class ConcatByteIterator extends ByteIterator {
         return iterators[seek].peekPrevious();
     }
 
+    public int drain(final byte[] dst, final int offs, final int len) {
+        int cnt = 0;
+        int seek;
+        while (cnt < len && (seek = seekNext()) != -1) {
+            cnt += iterators[seek].drain(dst, offs + cnt, len - cnt);
+        }
+        index += cnt;
+        return cnt;
+    }
+
+    public int drain(final ByteBuffer dst) {
+        int cnt = 0;
+        int seek;
+        while (dst.hasRemaining() && (seek = seekNext()) != -1) {
+            cnt += iterators[seek].drain(dst);
+        }
+        index += cnt;
+        return cnt;
+    }
+
+    public long skip(final long n) {
+        long cnt = 0;
+        int seek;
+        while (cnt < n && (seek = seekNext()) != -1) {
+            cnt += iterators[seek].skip(n - cnt);
+        }
+        index += cnt;
+        return cnt;
+    }
+
     public long getIndex() {
         return index;
     }
@@ -0,0 +1,41 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.common.iteration;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ */
+final class InputStreamByteIterator extends WindowedByteIterator {
+    private final InputStream stream;
+
+    InputStreamByteIterator(final InputStream stream, final int bufferSize) {
+        super(bufferSize);
+        this.stream = stream;
+    }
+
+    int read(final byte[] dst, final int offs, final int len) throws IOException {
+        int cnt;
+        do {
+            cnt = stream.read(dst, offs, len);
+        } while (cnt == 0);
+        return cnt;
+    }
+}
@@ -18,6 +18,7 @@
 
 package org.wildfly.common.iteration;
 
+import java.nio.ByteBuffer;
 import java.util.NoSuchElementException;
 
 /**
@@ -71,8 +72,75 @@ final class LimitedByteIterator extends ByteIterator {
         return iter.peekPrevious();
     }
 
+    public int getBE16() throws NoSuchElementException {
+        if (size - offset < 2) return super.getBE16();
+        final int v = iter.getBE16();
+        offset += 2;
+        return v;
+    }
+
+    public int getBE32() throws NoSuchElementException {
+        if (size - offset < 4) return super.getBE32();
+        final int v = iter.getBE32();
+        offset += 4;
+        return v;
+    }
+
+    public long getBE64() throws NoSuchElementException {
+        if (size - offset < 8) return super.getBE64();
+        final long v = iter.getBE64();
+        offset += 8;
+        return v;
+    }
+
+    public int getLE16() throws NoSuchElementException {
+        if (size - offset < 2) return super.getLE16();
+        final int v = iter.getLE16();
+        offset += 2;
+        return v;
+    }
+
+    public int getLE32() throws NoSuchElementException {
+        if (size - offset < 4) return super.getLE32();
+        final int v = iter.getLE32();
+        offset += 4;
+        return v;
+    }
+
+    public long getLE64() throws NoSuchElementException {
+        if (size - offset < 8) return super.getLE64();
+        final long v = iter.getLE64();
+        offset += 8;
+        return v;
+    }
+
     public int drain(final byte[] dst, final int offs, final int len) {
-        return super.drain(dst, offs, (int) Math.min(len, size - offset));
+        final int cnt = iter.drain(dst, offs, (int) Math.min(len, size - offset));
+        offset += cnt;
+        return cnt;
+    }
+
+    public int drain(final ByteBuffer dst) {
+        final int cnt;
+        if (dst.remaining() <= size - offset) {
+            cnt = iter.drain(dst);
+        } else {
+            final int limit = dst.limit();
+            dst.limit(dst.position() + (int) (size - offset));
+            try {
+                cnt = iter.drain(dst);
+            } finally {
+                dst.limit(limit);
+            }
+        }
+        offset += cnt;
+        return cnt;
+    }
+
+    public long skip(final long n) {
+        final long cnt = iter.skip(Math.min(n, size - offset));
+        offset += cnt;
+        return cnt;
     }
 
     public long getIndex() {
@@ -26,6 +26,7 @@ import org.wildfly.common.codec.Base64Alphabet;
  */
 final class LittleEndianBase64DecodingByteIterator extends Base64DecodingByteIterator {
     private final Base64Alphabet alphabet;
+    private byte[] table;
 
     LittleEndianBase64DecodingByteIterator(final CodePointIterator iter, final boolean requirePadding, final Base64Alphabet alphabet) {
         super(iter, requirePadding);
@@ -58,4 +59,28 @@ final class LittleEndianBase64DecodingByteIterator extends Base64DecodingByteIte
         if (d2 == - 1 || d3 == - 1) throw msg.invalidBase64Character();
         return (d2 >> 4 | d3 << 2) & 0xff;
     }
+
+    byte[] decodeTable() {
+        byte[] table = this.table;
+        if (table == null) {
+            table = this.table = table(alphabet);
+        }
+        return table;
+    }
+
+    int decodeBlocks(final byte[] table, final char[] src, final int cnt, final byte[] dst, final int offs) {
+        int i = 0, j = offs;
+        while (i < cnt) {
+            final char c0 = src[i], c1 = src[i + 1], c2 = src[i + 2], c3 = src[i + 3];
+            if ((c0 | c1 | c2 | c3) > 0xff) break;
+            final int d0 = table[c0], d1 = table[c1], d2 = table[c2], d3 = table[c3];
+            if ((d0 | d1 | d2 | d3) < 0) break;
+            dst[j] = (byte) (d0 | d1 << 6);
+            dst[j + 1] = (byte) (d1 >> 2 | d2 << 4);
+            dst[j + 2] = (byte) (d2 >> 4 | d3 << 2);
+            i += 4;
+            j += 3;
+        }
+        return i;
+    }
 }
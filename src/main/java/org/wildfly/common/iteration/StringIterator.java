@@ -76,6 +76,43 @@ final class StringIterator extends CodePointIterator {
         return offset;
     }
 
+    int peekChars(final char[] dst, final int offs, final int len) {
+        final int cnt = Math.min(this.len - idx, len);
+        string.getChars(this.offs + idx, this.offs + idx + cnt, dst, offs);
+        return cnt;
+    }
+
+    int drainChars(final char[] dst, final int offs, final int len) {
+        final int start = this.offs + idx;
+        int cnt = Math.min(this.len - idx, len);
+        if (cnt > 1 && cnt < this.len - idx && Character.isHighSurrogate(string.charAt(start + cnt - 1))) {
+            // do not split a surrogate pair
+            cnt --;
+        }
+        string.getChars(start, start + cnt, dst, offs);
+        offset += string.codePointCount(start, start + cnt);
+        idx += cnt;
+        return cnt;
+    }
+
+    void skipChars(final int cnt) {
+        idx += cnt;
+        offset += cnt;
+    }
+
+    int drainAscii(final byte[] dst, final int offs, final int len) {
+        final int cnt = Math.min(this.len - idx, len);
+        final int start = this.offs + idx;
+        int i = 0;
+        char c;
+        while (i < cnt && (c = string.charAt(start + i)) < 0x80) {
+            dst[offs + i ++] = (byte) c;
+        }
+        idx += i;
+        offset += i;
+        return i;
+    }
+
     public StringBuilder drainTo(final StringBuilder b) {
         try {
             return b.append(string, idx + offs, offs + len);
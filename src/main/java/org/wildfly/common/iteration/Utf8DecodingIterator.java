@@ -320,4 +320,37 @@ class Utf8DecodingIterator extends CodePointIterator {
     public long getIndex() {
         return offset;
     }
+
+    public StringBuilder drainTo(final StringBuilder b) {
+        while (iter.hasNext()) {
+            // copy runs of ASCII directly, and decode everything else one code point at a time
+            offset += iter.appendAscii(b);
+            if (iter.hasNext()) {
+                b.appendCodePoint(next());
+            }
+        }
+        return b;
+    }
+
+    public boolean contentEquals(final String other) {
+        final int length = other.length();
+        int i = 0;
+        for (;;) {
+            final int cnt = iter.matchAscii(other, i);
+            offset += cnt;
+            i += cnt;
+            if (i == length) {
+                return ! hasNext();
+            }
+            if (! hasNext()) {
+                return false;
+            }
+            final int cp = other.codePointAt(i);
+            if (peekNext() != cp) {
+                return false;
+            }
+            next();
+            i += Character.charCount(cp);
+        }
+    }
 }
@@ -18,6 +18,7 @@
 
 package org.wildfly.common.iteration;
 
+import java.io.ByteArrayOutputStream;
 import java.util.NoSuchElementException;
 
 import org.wildfly.common.Assert;
@@ -26,6 +27,8 @@ import org.wildfly.common.bytes.ByteStringBuilder;
 /**
  */
 final class Utf8EncodingByteIterator extends ByteIterator {
+    private static final int BUFFER_SIZE = 1024;
+
     private final CodePointIterator iter;
     private final boolean escapeNul;
     // state 0 = between code points
@@ -234,6 +237,32 @@ final class Utf8EncodingByteIterator extends ByteIterator {
         }
     }
 
+    public ByteArrayOutputStream drainTo(final ByteArrayOutputStream stream) {
+        final byte[] buf = new byte[BUFFER_SIZE];
+        int cnt;
+        while ((cnt = drain(buf)) > 0) {
+            stream.write(buf, 0, cnt);
+        }
+        return stream;
+    }
+
+    public int drain(final byte[] dst, final int offs, final int len) {
+        int cnt = 0;
+        while (cnt < len && hasNext()) {
+            if (st == 0 && ! escapeNul) {
+                // copy runs of ASCII directly, and encode everything else one byte at a time
+                final int ascii = iter.drainAscii(dst, offs + cnt, len - cnt);
+                offset += ascii;
+                cnt += ascii;
+                if (cnt == len || ! hasNext()) {
+                    break;
+                }
+            }
+            dst[offs + cnt ++] = (byte) next();
+        }
+        return cnt;
+    }
+
     public ByteStringBuilder appendTo(final ByteStringBuilder builder) {
         if (st == 0) {
             // this is faster
@@ -0,0 +1,146 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.common.iteration;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.NoSuchElementException;
+
+/**
+ */
+abstract class WindowedByteIterator extends ByteIterator {
+    /**
+     * The number of consumed bytes which are kept when the window slides, and which can be revisited.
+     */
+    static final int HISTORY = 64;
+
+    private final byte[] buf;
+    private int pos;
+    private int lim;
+    private long base;
+    private boolean eof;
+
+    WindowedByteIterator(final int bufferSize) {
+        buf = new byte[HISTORY + bufferSize];
+    }
+
+    /**
+     * Read more bytes from the source, blocking until at least one byte is read or the end of the source is reached.
+     *
+     * @param dst the destination array
+     * @param offs the offset into the destination array
+     * @param len the maximum number of bytes to read
+     * @return the number of bytes read, or -1 at the end of the source
+     * @throws IOException if the source could not be read
+     */
+    abstract int read(byte[] dst, int offs, int len) throws IOException;
+
+    private boolean fill() {
+        if (eof) {
+            return false;
+        }
+        final byte[] buf = this.buf;
+        if (lim == buf.length) {
+            // slide the window, keeping the most recently consumed bytes
+            final int keep = Math.min(pos, HISTORY);
+            System.arraycopy(buf, pos - keep, buf, 0, keep);
+            base += pos - keep;
+            pos = lim = keep;
+        }
+        final int cnt;
+        try {
+            cnt = read(buf, lim, buf.length - lim);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (cnt == -1) {
+            eof = true;
+            return false;
+        }
+        lim += cnt;
+        return true;
+    }
+
+    public boolean hasNext() {
+        return pos < lim || fill() && pos < lim;
+    }
+
+    public boolean hasPrevious() {
+        return pos > 0;
+    }
+
+    public int next() throws NoSuchElementException {
+        if (! hasNext()) throw new NoSuchElementException();
+        return buf[pos++] & 0xff;
+    }
+
+    public int peekNext() throws NoSuchElementException {
+        if (! hasNext()) throw new NoSuchElementException();
+        return buf[pos] & 0xff;
+    }
+
+    public int previous() throws NoSuchElementException {
+        if (! hasPrevious()) throw new NoSuchElementException();
+        return buf[--pos] & 0xff;
+    }
+
+    public int peekPrevious() throws NoSuchElementException {
+        if (! hasPrevious()) throw new NoSuchElementException();
+        return buf[pos - 1] & 0xff;
+    }
+
+    public long getIndex() {
+        return base + pos;
+    }
+
+    public int drain(final byte[] dst, final int offs, final int len) {
+        int cnt = 0;
+        while (cnt < len && hasNext()) {
+            final int n = Math.min(lim - pos, len - cnt);
+            System.arraycopy(buf, pos, dst, offs + cnt, n);
+            pos += n;
+            cnt += n;
+        }
+        return cnt;
+    }
+
+    int appendAscii(final StringBuilder b) {
+        int total = 0;
+        while (hasNext()) {
+            final int start = pos;
+            int i = start;
+            while (i < lim && buf[i] >= 0) {
+                i ++;
+            }
+            final int cnt = i - start;
+            if (cnt > 0) {
+                b.ensureCapacity(b.length() + cnt);
+                for (int j = start; j < i; j ++) {
+                    b.append((char) buf[j]);
+                }
+                pos = i;
+                total += cnt;
+            }
+            if (i < lim) {
+                break;
+            }
+        }
+        return total;
+    }
+}
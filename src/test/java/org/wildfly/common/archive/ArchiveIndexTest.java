@@ -20,6 +20,8 @@ package org.wildfly.common.archive;
 
 import static org.junit.Assert.*;
 
+import java.util.Random;
+
 import org.junit.Test;
 
 /**
@@ -27,7 +29,7 @@ import org.junit.Test;
  */
 public class ArchiveIndexTest {
 
-    private void doIndexTest(Index index) {
+    private void doIndexTest(ArrayIndex index) {
         // simple get/put
         index.put(4, 1234);
         assertEquals(1234, index.get(4));
@@ -55,4 +57,58 @@ public class ArchiveIndexTest {
     public void testHugeIndex() {
         doIndexTest(new HugeIndex(112));
     }
+
+    @Test
+    public void testCompactIndex() {
+        final int count = 100_000;
+        final long cd = 5_000_000_000L;
+        final CompactIndex index = CompactIndex.create(cd, count * 100L, count);
+        assertNotNull(index);
+        // about 80% full
+        assertTrue(index.size() < count * 13 / 10);
+        final Random random = new Random(1234);
+        final int[] hashes = new int[count];
+        for (int i = 0; i < count; i ++) {
+            hashes[i] = random.nextInt();
+            index.put(hashes[i], cd + i * 100L);
+        }
+        // an entry with the same hash as an earlier one is found after it
+        index.put(hashes[0], cd + 99L);
+        assertFalse(index.overflowed());
+        for (int i = 0; i < count; i ++) {
+            boolean found = false;
+            for (int j = index.first(hashes[i]); j != -1; j = index.next(hashes[i], j)) {
+                if (index.get(j) == cd + i * 100L) {
+                    found = true;
+                    break;
+                }
+            }
+            assertTrue(found);
+        }
+        int candidates = 0;
+        for (int j = index.first(hashes[0]); j != -1; j = index.next(hashes[0], j)) {
+            if (candidates ++ == 0) {
+                assertEquals(cd, index.get(j));
+            }
+        }
+        assertTrue(candidates >= 2);
+        // most absent hashes yield no candidates at all
+        int misses = 0;
+        for (int i = 0; i < count; i ++) {
+            if (index.first(random.nextInt()) != -1) {
+                misses ++;
+            }
+        }
+        assertTrue(misses < count / 10);
+    }
+
+    @Test
+    public void testCompactIndexOverflow() {
+        final CompactIndex index = CompactIndex.create(0, 10000, 1000);
+        for (int i = 0; i < 1000 && ! index.overflowed(); i ++) {
+            // every entry has the same home slot
+            index.put(42, i * 10);
+        }
+        assertTrue(index.overflowed());
+    }
 }
@@ -23,17 +23,41 @@ import static org.junit.Assert.*;
 import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStreamWriter;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
+import java.util.stream.Collectors;
 import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /**
  *
@@ -44,6 +68,9 @@ public class ArchiveTest {
         "This is a string that is meant to be long but easy to compress, which can be read back in a single line.";
     private static final String TEST_CONTENT_NAME = "test/content/file.text";
 
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
     @Test
     public void testReadContentStored() throws IOException {
         doReadContent(ZipEntry.STORED);
@@ -101,4 +128,806 @@ public class ArchiveTest {
         assertEquals(0, contentsBuf.remaining());
         assertArrayEquals(contentBytes, compareBytes);
     }
+
+    @Test
+    public void testIndexCache() throws IOException {
+        final Path jar = tmp.newFile("cached.jar").toPath();
+        Files.write(jar, makeJar(500, ZipEntry.DEFLATED));
+        final Path cacheDir = tmp.newFolder("cache").toPath();
+        final ArchiveOptions options = ArchiveOptions.DEFAULT.withIndexCacheDirectory(cacheDir);
+        try (Archive archive = Archive.open(jar, options)) {
+            assertTrue(archive.getIndex() instanceof LargeIndex || archive.getIndex() instanceof TinyIndex);
+            checkEntries(archive, 500);
+        }
+        try (var files = Files.list(cacheDir)) {
+            assertEquals(1, files.count());
+        }
+        try (Archive archive = Archive.open(jar, options)) {
+            assertTrue(archive.getIndex() instanceof MappedIndex);
+            checkEntries(archive, 500);
+        }
+        // a corrupted table must not be used
+        final Path cacheFile;
+        try (var files = Files.list(cacheDir)) {
+            cacheFile = files.findFirst().orElseThrow();
+        }
+        final byte[] cacheBytes = Files.readAllBytes(cacheFile);
+        cacheBytes[cacheBytes.length - 1] ^= 0x55;
+        Files.write(cacheFile, cacheBytes);
+        try (Archive archive = Archive.open(jar, options)) {
+            assertFalse(archive.getIndex() instanceof MappedIndex);
+            checkEntries(archive, 500);
+        }
+        // a changed archive must not reuse the stale index
+        Files.write(jar, makeJar(20, ZipEntry.STORED));
+        try (Archive archive = Archive.open(jar, options)) {
+            assertFalse(archive.getIndex() instanceof MappedIndex);
+            checkEntries(archive, 20);
+        }
+    }
+
+    @Test
+    public void testEmptyArchive() throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new ZipOutputStream(os).close();
+        final byte[] empty = os.toByteArray();
+        for (ArchiveOptions options : new ArchiveOptions[] { ArchiveOptions.DEFAULT, ArchiveOptions.DEFAULT.withCompactIndex(true) }) {
+            final Archive archive = Archive.open(ByteBuffer.wrap(empty), options);
+            assertEquals(-1, archive.getEntryHandle("x"));
+            assertEquals(-1, archive.getEntryHandle("x".getBytes(StandardCharsets.UTF_8)));
+            assertEquals(-1, archive.getEntryHandle(ByteBuffer.allocateDirect(1).put((byte) 'x').flip()));
+        }
+        final Path path = tmp.newFile("empty.zip").toPath();
+        Files.write(path, empty);
+        final ArchiveOptions cached = ArchiveOptions.DEFAULT.withIndexCacheDirectory(tmp.newFolder("empty-cache").toPath());
+        for (int i = 0; i < 2; i ++) {
+            try (Archive archive = Archive.open(path, cached)) {
+                assertEquals(-1, archive.getEntryHandle("x"));
+            }
+        }
+    }
+
+    @Test
+    public void testArchiveComment() throws IOException {
+        for (int commentLength : new int[] { 0, 1, 7, 8, 9, 1000, 0xffff }) {
+            final ByteArrayOutputStream os = new ByteArrayOutputStream();
+            try (ZipOutputStream zos = new ZipOutputStream(os)) {
+                zos.setComment("x".repeat(commentLength));
+                zos.putNextEntry(new ZipEntry(TEST_CONTENT_NAME));
+                zos.write(entryContent(0));
+                zos.closeEntry();
+            }
+            final byte[] bytes = os.toByteArray();
+            final long eocd = Archive.findEndOfCentralDirectory(new ByteBuffer[] { ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN) }, 0, bytes.length);
+            assertEquals(bytes.length - Archive.EOCD_END - commentLength, eocd);
+            final Archive archive = Archive.open(ByteBuffer.wrap(bytes));
+            final long handle = archive.getEntryHandle(TEST_CONTENT_NAME);
+            assertNotEquals(-1, handle);
+            assertArrayEquals(entryContent(0), toArray(archive.getEntryContents(handle)));
+        }
+    }
+
+    @Test
+    public void testInvalidArchive() {
+        for (int length : new int[] { 0, 10, 22, 100, 70000 }) {
+            try {
+                Archive.open(ByteBuffer.allocate(length));
+                fail("Expected exception");
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testFindBytes() {
+        assertEquals(0, Archive.findBytes(0x1122_3344_5566_7788L, (byte) 0x50));
+        assertEquals(0x80L, Archive.findBytes(0x1122_3344_5566_7750L, (byte) 0x50));
+        assertEquals(0x8000_0000_0080_0000L, Archive.findBytes(0x5022_3344_5550_7788L, (byte) 0x50));
+        assertEquals(0x8080_8080_8080_8080L, Archive.findBytes(0xd0d0_d0d0_d0d0_d0d0L, (byte) 0xd0));
+    }
+
+    @Test
+    public void testLookupUtf8() throws IOException {
+        doLookupTest(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testLookupCp437() throws IOException {
+        doLookupTest(Charset.forName("IBM437"));
+    }
+
+    private void doLookupTest(Charset charset) throws IOException {
+        final String[] names = { "a", "META-INF/MANIFEST.MF", "org/example/some/long/package/name/SomeClassName$Inner.class", "caf\u00e9/men\u00fc.txt" };
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(os, charset)) {
+            for (String name : names) {
+                zos.putNextEntry(new ZipEntry(name));
+                zos.write(name.getBytes(StandardCharsets.UTF_8));
+                zos.closeEntry();
+            }
+        }
+        final Archive archive = Archive.open(ByteBuffer.wrap(os.toByteArray()));
+        for (String name : names) {
+            final long handle = archive.getEntryHandle(name);
+            assertNotEquals(name, -1, handle);
+            final byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+            assertEquals(name, handle, archive.getEntryHandle(new StringBuilder(name)));
+            assertEquals(name, handle, archive.getEntryHandle(utf8));
+            final byte[] padded = new byte[utf8.length + 6];
+            System.arraycopy(utf8, 0, padded, 3, utf8.length);
+            assertEquals(name, handle, archive.getEntryHandle(padded, 3, utf8.length));
+            final ByteBuffer direct = ByteBuffer.allocateDirect(utf8.length + 2);
+            direct.position(1);
+            direct.put(utf8).flip().position(1);
+            assertEquals(name, handle, archive.getEntryHandle(direct));
+            assertEquals(1, direct.position());
+            assertEquals(name, handle, archive.getEntryHandle(direct.order(ByteOrder.LITTLE_ENDIAN)));
+            assertEquals(name, archive.getEntryName(handle));
+            // near misses
+            assertEquals(-1, archive.getEntryHandle(name + "x"));
+            assertEquals(-1, archive.getEntryHandle((name + "x").getBytes(StandardCharsets.UTF_8)));
+            assertEquals(-1, archive.getEntryHandle(new StringBuilder(name).deleteCharAt(0)));
+        }
+    }
+
+    @Test
+    public void testInflaterPoolAndBufferReuse() throws IOException {
+        final InflaterPool pool = new InflaterPool(2);
+        final Archive archive = Archive.open(ByteBuffer.wrap(makeJar(50, ZipEntry.DEFLATED)), ArchiveOptions.DEFAULT.withInflaterPool(pool));
+        final ByteBuffer heap = ByteBuffer.allocate(4096);
+        final ByteBuffer direct = ByteBuffer.allocateDirect(4096);
+        for (int i = 0; i < 50; i ++) {
+            final long handle = archive.getEntryHandle(entryName(i));
+            for (ByteBuffer buf : new ByteBuffer[] { heap, direct }) {
+                buf.clear().position(7);
+                assertEquals(entryContent(i).length, archive.getEntryContents(handle, buf));
+                buf.flip().position(7);
+                assertArrayEquals(entryContent(i), toArray(buf));
+            }
+            try (InputStream is = archive.getEntryStream(handle)) {
+                assertArrayEquals(entryContent(i), is.readAllBytes());
+            }
+        }
+        assertEquals(1, pool.getMissCount());
+        assertEquals(149, pool.getHitCount());
+        assertEquals(0, pool.getDiscardCount());
+        final long handle = archive.getEntryHandle(entryName(49));
+        try {
+            archive.getEntryContents(handle, ByteBuffer.allocate(entryContent(49).length - 1));
+            fail("Expected exception");
+        } catch (BufferOverflowException expected) {
+        }
+    }
+
+    @Test
+    public void testStoredStream() throws IOException {
+        final Archive archive = Archive.open(ByteBuffer.wrap(makeJar(10, ZipEntry.STORED)));
+        for (int i = 0; i < 10; i ++) {
+            try (InputStream is = archive.getEntryStream(archive.getEntryHandle(entryName(i)))) {
+                assertArrayEquals(entryContent(i), is.readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    public void testParallelIndex() throws IOException {
+        final int count = Archive.PARALLEL_INDEX_THRESHOLD * 2 + 17;
+        final ByteBuffer buf = ByteBuffer.wrap(makeJar(count, ZipEntry.STORED));
+        final Archive sequential = Archive.open(buf);
+        final Archive parallel = Archive.open(buf, ArchiveOptions.DEFAULT.withParallelIndexing(true));
+        final Index expected = sequential.getIndex();
+        final Index actual = parallel.getIndex();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i ++) {
+            assertEquals(expected.get(i), actual.get(i));
+        }
+        checkEntries(parallel, count);
+    }
+
+    @Test
+    public void testListing() throws IOException {
+        final String[] names = { "META-INF/", "META-INF/MANIFEST.MF", "META-INF/services/", "META-INF/services/a.B", "META-INF/services/c.D", "a/b/C.class", "a/b/D.class", "a/b/c/E.class", "a/bc/F.class", "top.txt" };
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(os)) {
+            // write in a scrambled order
+            for (int i = 0; i < names.length; i ++) {
+                zos.putNextEntry(new ZipEntry(names[i * 3 % names.length]));
+                zos.closeEntry();
+            }
+        }
+        final Archive archive = Archive.open(ByteBuffer.wrap(os.toByteArray()));
+        assertListing(archive, archive.listDirectory(""), "META-INF/", "top.txt");
+        assertListing(archive, archive.listDirectory("META-INF"), "META-INF/MANIFEST.MF", "META-INF/services/");
+        assertListing(archive, archive.listDirectory("META-INF/services/"), "META-INF/services/a.B", "META-INF/services/c.D");
+        assertListing(archive, archive.listDirectory("a/b"), "a/b/C.class", "a/b/D.class");
+        assertListing(archive, archive.listDirectory("a/"));
+        assertListing(archive, archive.listDirectory("nope/"));
+        assertListing(archive, archive.entriesWithPrefix("META-INF/services/"), "META-INF/services/", "META-INF/services/a.B", "META-INF/services/c.D");
+        assertListing(archive, archive.entriesWithPrefix("a/b"), "a/b/C.class", "a/b/D.class", "a/b/c/E.class", "a/bc/F.class");
+        assertListing(archive, archive.entriesWithPrefix(new StringBuilder("a/b/")), "a/b/C.class", "a/b/D.class", "a/b/c/E.class");
+        assertListing(archive, archive.entriesWithPrefix("top.txt"), "top.txt");
+        assertListing(archive, archive.entriesWithPrefix("z"));
+        assertEquals(names.length, archive.entriesWithPrefix("").length);
+    }
+
+    private static void assertListing(Archive archive, long[] handles, String... expected) {
+        final String[] actual = new String[handles.length];
+        for (int i = 0; i < handles.length; i ++) {
+            actual[i] = archive.getEntryName(handles[i]);
+        }
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    public void testEntryChannelsStored() throws IOException {
+        doEntryChannelTest(ZipEntry.STORED);
+    }
+
+    @Test
+    public void testEntryChannelsDeflated() throws IOException {
+        doEntryChannelTest(ZipEntry.DEFLATED);
+    }
+
+    private void doEntryChannelTest(int method) throws IOException {
+        final Archive archive = Archive.open(ByteBuffer.wrap(makeJar(20, method)));
+        for (int i = 0; i < 20; i ++) {
+            final byte[] expected = entryContent(i);
+            final long handle = archive.getEntryHandle(entryName(i));
+            final ByteArrayOutputStream os = new ByteArrayOutputStream();
+            assertEquals(expected.length, archive.transferEntryTo(handle, Channels.newChannel(os)));
+            assertArrayEquals(expected, os.toByteArray());
+            try (SeekableByteChannel channel = archive.getEntryChannel(handle)) {
+                assertEquals(expected.length, channel.size());
+                // read in small pieces
+                final ByteBuffer buf = ByteBuffer.allocate(expected.length + 10);
+                final ByteBuffer piece = ByteBuffer.allocate(13);
+                int res;
+                while ((res = channel.read(piece.clear())) != -1) {
+                    assertTrue(res > 0);
+                    buf.put(piece.flip());
+                }
+                assertArrayEquals(expected, toArray(buf.flip()));
+                assertEquals(expected.length, channel.position());
+                // seek backwards then forwards
+                final ByteBuffer one = ByteBuffer.allocate(1);
+                for (int pos : new int[] { 5, 0, expected.length - 1, 17 }) {
+                    channel.position(pos);
+                    assertEquals(1, channel.read(one.clear()));
+                    assertEquals(expected[pos], one.get(0));
+                    assertEquals(pos + 1, channel.position());
+                }
+                channel.position(expected.length + 100);
+                assertEquals(-1, channel.read(one.clear()));
+            }
+        }
+    }
+
+    @Test
+    public void testEntryReader() throws IOException {
+        // larger than the reader's chunk size, and compressible
+        final byte[] large = new byte[3_000_000];
+        for (int i = 0; i < large.length; i ++) {
+            large[i] = (byte) (i % 251 ^ i >> 12);
+        }
+        final Path path = tmp.newFile("large.zip").toPath();
+        try (ArchiveWriter writer = ArchiveWriter.create(path)) {
+            writer.addStoredEntry("stored.bin", ByteBuffer.wrap(large));
+            writer.addEntry("deflated.bin", large);
+        }
+        try (Archive archive = Archive.open(path)) {
+            for (String name : new String[] { "stored.bin", "deflated.bin" }) {
+                final long handle = archive.getEntryHandle(name);
+                try (EntryReader reader = archive.getEntryReader(handle)) {
+                    assertEquals(large.length, reader.size());
+                    final byte[] buf = new byte[100_000];
+                    assertEquals(buf.length, reader.read(buf, 0, buf.length));
+                    assertArrayEquals(Arrays.copyOfRange(large, 0, buf.length), buf);
+                    assertEquals(1_000_000, reader.skip(1_000_000));
+                    assertEquals(1_100_000, reader.position());
+                    final ByteArrayOutputStream os = new ByteArrayOutputStream();
+                    assertEquals(large.length - 1_100_000, reader.transferTo(os));
+                    assertArrayEquals(Arrays.copyOfRange(large, 1_100_000, large.length), os.toByteArray());
+                    assertEquals(-1, reader.read(buf, 0, buf.length));
+                    assertEquals(0, reader.skip(10));
+                    assertEquals(large.length - 1_000_000, reader.getBytesRead());
+                    assertTrue(reader.getThroughput() > 0.0);
+                }
+                try (EntryReader reader = archive.getEntryReader(handle)) {
+                    reader.skip(2_999_000);
+                    final ByteArrayOutputStream os = new ByteArrayOutputStream();
+                    assertEquals(1000, reader.transferTo(Channels.newChannel(os)));
+                    assertArrayEquals(Arrays.copyOfRange(large, 2_999_000, large.length), os.toByteArray());
+                    reader.close();
+                    try {
+                        reader.read(ByteBuffer.allocate(1));
+                        fail("Expected exception");
+                    } catch (ClosedChannelException expected) {
+                    }
+                }
+                try (InputStream is = archive.getEntryStream(handle)) {
+                    assertEquals(2_000_000, is.skip(2_000_000));
+                    assertArrayEquals(Arrays.copyOfRange(large, 2_000_000, large.length), is.readAllBytes());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNestedArchives() throws IOException {
+        final byte[] inner = makeJar(30, ZipEntry.DEFLATED);
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(os)) {
+            zos.putNextEntry(new ZipEntry("lib/deflated.jar"));
+            zos.write(inner);
+            zos.closeEntry();
+            final ZipEntry stored = new ZipEntry("lib/stored.jar");
+            stored.setMethod(ZipEntry.STORED);
+            stored.setSize(inner.length);
+            final CRC32 crc32 = new CRC32();
+            crc32.update(inner);
+            stored.setCrc(crc32.getValue());
+            zos.putNextEntry(stored);
+            zos.write(inner);
+            zos.closeEntry();
+        }
+        final ByteBuffer outerBuf = ByteBuffer.wrap(os.toByteArray());
+        try (Archive outer = Archive.open(outerBuf)) {
+            checkEntries(outer.getNestedArchive(outer.getEntryHandle("lib/stored.jar")), 30);
+            try {
+                outer.getNestedArchive(outer.getEntryHandle("lib/deflated.jar"));
+                fail("Expected exception");
+            } catch (IOException expected) {
+            }
+        }
+        final Archive outer = Archive.open(outerBuf, ArchiveOptions.DEFAULT.withCompressedNestedArchives(true));
+        final long handle = outer.getEntryHandle("lib/deflated.jar");
+        final Archive nested = outer.getNestedArchive(handle);
+        checkEntries(nested, 30);
+        assertSame(nested, outer.getNestedArchive(handle));
+        checkEntries(outer.getNestedArchive(outer.getEntryHandle("lib/stored.jar")), 30);
+        outer.close();
+        try {
+            outer.getNestedArchive(handle);
+            fail("Expected exception");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void testContentCache() throws IOException {
+        // entries 0-4 are 105-525 bytes each, so only a few fit
+        final ArchiveOptions options = ArchiveOptions.DEFAULT.withContentCache(1200, ContentCache.Retention.STRONG);
+        final Archive archive = Archive.open(ByteBuffer.wrap(makeJar(5, ZipEntry.DEFLATED)), options);
+        final ContentCache cache = archive.getContentCache();
+        assertNotNull(cache);
+        final long handle = archive.getEntryHandle(entryName(1));
+        final ByteBuffer first = archive.getEntryContents(handle);
+        assertTrue(first.isReadOnly());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        final ByteBuffer second = archive.getEntryContents(handle);
+        assertArrayEquals(entryContent(1), toArray(second));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(entryContent(1).length, cache.getSize());
+        // consuming one view does not affect the others
+        second.position(second.limit());
+        assertArrayEquals(entryContent(1), toArray(archive.getEntryContents(handle)));
+        // fill past the limit
+        for (int i = 0; i < 5; i ++) {
+            assertArrayEquals(entryContent(i), toArray(archive.getEntryContents(archive.getEntryHandle(entryName(i)))));
+        }
+        assertTrue(cache.getSize() <= 1200);
+        assertTrue(cache.getEvictionCount() > 0);
+        final ByteBuffer dest = ByteBuffer.allocate(1000);
+        archive.getEntryContents(archive.getEntryHandle(entryName(4)), dest);
+        assertArrayEquals(entryContent(4), toArray(dest.flip()));
+        archive.close();
+        assertEquals(0, cache.getSize());
+        assertNull(Archive.open(ByteBuffer.wrap(makeJar(1, ZipEntry.DEFLATED))).getContentCache());
+    }
+
+    @Test
+    public void testVerify() throws IOException {
+        final byte[] deflated = makeJar(50, ZipEntry.DEFLATED);
+        Archive.open(ByteBuffer.wrap(deflated)).verifyAll(Runnable::run);
+        final byte[] stored = makeJar(50, ZipEntry.STORED);
+        Archive archive = Archive.open(ByteBuffer.wrap(stored));
+        archive.verifyAll(ForkJoinPool.commonPool());
+        final long handle = archive.getEntryHandle(entryName(3));
+        assertTrue(archive.verifyEntry(handle));
+        // corrupt the data of one entry
+        final byte[] content = entryContent(3);
+        int idx = -1;
+        for (int i = 0; idx == -1 && i <= stored.length - content.length; i ++) {
+            if (Arrays.equals(stored, i, i + content.length, content, 0, content.length)) {
+                idx = i;
+            }
+        }
+        assertNotEquals(-1, idx);
+        stored[idx + 5] ^= 0x20;
+        archive = Archive.open(ByteBuffer.wrap(stored));
+        assertFalse(archive.verifyEntry(handle));
+        assertTrue(archive.verifyEntry(archive.getEntryHandle(entryName(4))));
+        try {
+            archive.verifyAll(ForkJoinPool.commonPool());
+            fail("Expected exception");
+        } catch (IOException e) {
+            assertEquals(1, e.getSuppressed().length);
+            assertTrue(e.getSuppressed()[0].getMessage().contains(entryName(3)));
+        }
+    }
+
+    @Test
+    public void testEntryHandles() throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (JarOutputStream jos = new JarOutputStream(os)) {
+            for (int i = 0; i < 500; i ++) {
+                final JarEntry jarEntry = new JarEntry(entryName(i));
+                // comments must be skipped when walking the directory
+                jarEntry.setComment("comment " + i);
+                jos.putNextEntry(jarEntry);
+                jos.write(entryContent(i));
+                jos.closeEntry();
+            }
+        }
+        final Archive archive = Archive.open(ByteBuffer.wrap(os.toByteArray()));
+        final List<Long> walked = new ArrayList<>();
+        for (long handle = archive.getFirstEntryHandle(); handle != -1; handle = archive.getNextEntryHandle(handle)) {
+            walked.add(Long.valueOf(handle));
+        }
+        assertEquals(500, walked.size());
+        assertEquals(walked, archive.entryHandles().boxed().collect(Collectors.toList()));
+        final Set<String> names = archive.entryHandles().parallel().mapToObj(archive::getEntryName).collect(Collectors.toSet());
+        assertEquals(500, names.size());
+        for (int i = 0; i < 500; i ++) {
+            assertTrue(names.contains(entryName(i)));
+        }
+        final List<Long> visited = new ArrayList<>();
+        archive.forEachEntry((handle, name, method, compressedSize, uncompressedSize) -> {
+            final int i = visited.size();
+            visited.add(Long.valueOf(handle));
+            assertTrue(name.isReadOnly());
+            assertEquals(entryName(i), StandardCharsets.UTF_8.decode(name).toString());
+            assertEquals(Archive.METHOD_DEFLATE, method);
+            assertEquals(archive.getCompressedSize(handle), compressedSize);
+            assertEquals(entryContent(i).length, uncompressedSize);
+        });
+        assertEquals(walked, visited);
+    }
+
+    @Test
+    public void testCompactIndex() throws IOException {
+        final byte[] jar = makeJar(5000, ZipEntry.DEFLATED);
+        Archive archive = Archive.open(ByteBuffer.wrap(jar), ArchiveOptions.DEFAULT.withCompactIndex(true));
+        assertTrue(archive.getIndex() instanceof CompactIndex);
+        checkEntries(archive, 5000);
+        assertEquals(-1, archive.getEntryHandle("org/example/Missing.class"));
+        assertEquals(-1, archive.getEntryHandle("org/example/Missing.class".getBytes(StandardCharsets.UTF_8)));
+        archive = Archive.open(ByteBuffer.wrap(jar), ArchiveOptions.DEFAULT.withCompactIndex(true).withParallelIndexing(true));
+        assertTrue(archive.getIndex() instanceof CompactIndex);
+        checkEntries(archive, 5000);
+    }
+
+    @Test
+    public void testMultiRelease() throws IOException {
+        final byte[] jar = makeMultiReleaseJar(true);
+        final String[] versions = { "META-INF/versions/9/", "META-INF/versions/11/", "META-INF/versions/17/" };
+        Archive archive = Archive.open(ByteBuffer.wrap(jar), ArchiveOptions.DEFAULT.withMultiReleaseVersion(11));
+        assertEquals("META-INF/versions/11/a/B.class", archive.getEntryName(archive.getEntryHandle("a/B.class")));
+        assertArrayEquals("11".getBytes(StandardCharsets.UTF_8), toArray(archive.getEntryContents(archive.getEntryHandle("a/B.class"))));
+        assertEquals("META-INF/versions/9/a/C.class", archive.getEntryName(archive.getEntryHandle("a/C.class".getBytes(StandardCharsets.UTF_8))));
+        assertEquals("a/D.class", archive.getEntryName(archive.getEntryHandle(ByteBuffer.allocateDirect(9).put("a/D.class".getBytes(StandardCharsets.UTF_8)).flip())));
+        // versioned names can still be looked up directly
+        assertEquals(versions[2] + "a/B.class", archive.getEntryName(archive.getEntryHandle(versions[2] + "a/B.class")));
+        assertEquals(-1, archive.getEntryHandle("a/E.class"));
+        archive = Archive.open(ByteBuffer.wrap(jar), ArchiveOptions.DEFAULT.withMultiReleaseVersion(21));
+        assertEquals("META-INF/versions/17/a/B.class", archive.getEntryName(archive.getEntryHandle("a/B.class")));
+        assertEquals("META-INF/versions/17/a/E.class", archive.getEntryName(archive.getEntryHandle("a/E.class")));
+        archive = Archive.open(ByteBuffer.wrap(jar), ArchiveOptions.DEFAULT.withMultiReleaseVersion(8));
+        assertEquals("a/B.class", archive.getEntryName(archive.getEntryHandle("a/B.class")));
+        archive = Archive.open(ByteBuffer.wrap(jar));
+        assertEquals("a/B.class", archive.getEntryName(archive.getEntryHandle("a/B.class")));
+        // not multi-release
+        archive = Archive.open(ByteBuffer.wrap(makeMultiReleaseJar(false)), ArchiveOptions.DEFAULT.withMultiReleaseVersion(17));
+        assertEquals("a/B.class", archive.getEntryName(archive.getEntryHandle("a/B.class")));
+    }
+
+    @Test
+    public void testMultiReleaseIndexCache() throws IOException {
+        final Path jar = tmp.newFile("multi-release.jar").toPath();
+        Files.write(jar, makeMultiReleaseJar(true));
+        final ArchiveOptions options = ArchiveOptions.DEFAULT.withIndexCacheDirectory(tmp.newFolder("mr-cache").toPath());
+        for (int i = 0; i < 2; i ++) {
+            try (Archive archive = Archive.open(jar, options.withMultiReleaseVersion(11))) {
+                assertEquals(i == 1, archive.getIndex() instanceof MappedIndex);
+                assertEquals("META-INF/versions/11/a/B.class", archive.getEntryName(archive.getEntryHandle("a/B.class")));
+                assertEquals("META-INF/versions/9/a/C.class", archive.getEntryName(archive.getEntryHandle("a/C.class")));
+                assertEquals("a/D.class", archive.getEntryName(archive.getEntryHandle("a/D.class")));
+            }
+        }
+        // the cached version index only applies to the release it was built for
+        try (Archive archive = Archive.open(jar, options.withMultiReleaseVersion(21))) {
+            assertFalse(archive.getIndex() instanceof MappedIndex);
+            assertEquals("META-INF/versions/17/a/B.class", archive.getEntryName(archive.getEntryHandle("a/B.class")));
+        }
+        try (Archive archive = Archive.open(jar, options)) {
+            assertFalse(archive.getIndex() instanceof MappedIndex);
+            assertEquals("a/B.class", archive.getEntryName(archive.getEntryHandle("a/B.class")));
+        }
+    }
+
+    static byte[] makeMultiReleaseJar(boolean multiRelease) throws IOException {
+        final Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        if (multiRelease) {
+            manifest.getMainAttributes().put(Attributes.Name.MULTI_RELEASE, "true");
+        }
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (JarOutputStream jos = new JarOutputStream(os, manifest)) {
+            for (String name : new String[] {
+                "a/B.class", "a/C.class", "a/D.class",
+                "META-INF/versions/9/a/B.class", "META-INF/versions/9/a/C.class",
+                "META-INF/versions/17/a/B.class", "META-INF/versions/17/a/E.class",
+                "META-INF/versions/11/", "META-INF/versions/11/a/B.class",
+                "META-INF/versions/x/a/D.class",
+            }) {
+                jos.putNextEntry(new JarEntry(name));
+                final int idx = name.indexOf('/', 18);
+                jos.write((name.startsWith("META-INF/") ? name.substring(18, idx) : "base").getBytes(StandardCharsets.UTF_8));
+                jos.closeEntry();
+            }
+        }
+        return os.toByteArray();
+    }
+
+    @Test
+    public void testPreload() throws IOException {
+        final Path path = tmp.newFile("preload.jar").toPath();
+        Files.write(path, makeJar(200, ZipEntry.DEFLATED));
+        final ArchiveOptions options = ArchiveOptions.DEFAULT.withPreloadEntries(List.of(entryName(3), "missing"));
+        try (Archive archive = Archive.open(path, options.withPreload(ArchiveOptions.Preload.FULL).withPreloadExecutor(ForkJoinPool.commonPool()))) {
+            archive.getPreloadCompletion().toCompletableFuture().join();
+            checkEntries(archive, 200);
+        }
+        try (Archive archive = Archive.open(path, options.withPreload(ArchiveOptions.Preload.CENTRAL_DIRECTORY))) {
+            archive.getPreloadCompletion().toCompletableFuture().join();
+            checkEntries(archive, 200);
+        }
+        // preloading does not count as lookups
+        final ArchiveMetrics metrics = new ArchiveMetrics("preload");
+        try (Archive archive = Archive.open(path, options.withMetrics(metrics))) {
+            archive.getPreloadCompletion().toCompletableFuture().join();
+            assertEquals(0, metrics.getHitCount() + metrics.getMissCount());
+        }
+        try (Archive archive = Archive.open(path)) {
+            assertTrue(archive.getPreloadCompletion().toCompletableFuture().isDone());
+        }
+        try (Archive archive = Archive.open(path, options.withPreloadExecutor(task -> { throw new RejectedExecutionException(); }))) {
+            assertTrue(archive.getPreloadCompletion().toCompletableFuture().isCompletedExceptionally());
+            checkEntries(archive, 200);
+        }
+    }
+
+    @Test
+    public void testReopen() throws IOException {
+        final byte[] base = makeJar(100, ZipEntry.DEFLATED);
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(os)) {
+            for (int i = 0; i < 20; i ++) {
+                zos.putNextEntry(new ZipEntry("overlay/" + i));
+                zos.write(entryContent(i));
+                zos.closeEntry();
+            }
+        }
+        final byte[] overlay = os.toByteArray();
+        final Path path = tmp.newFile("reopen.jar").toPath();
+        Files.write(path, base);
+        final ArchiveOptions options = ArchiveOptions.DEFAULT.withIncrementalReopen(true);
+        final Archive previous = Archive.open(path, options);
+        checkEntries(previous, 100);
+        for (boolean keepDirectory : new boolean[] { true, false }) {
+            Files.write(path, append(base, overlay, keepDirectory));
+            final Archive archive = Archive.reopen(previous);
+            assertTrue(archive.isIndexRelocated());
+            checkEntries(archive, 100);
+            for (int i = 0; i < 20; i ++) {
+                assertArrayEquals(entryContent(i), toArray(archive.getEntryContents(archive.getEntryHandle("overlay/" + i))));
+            }
+            assertEquals(-1, archive.getEntryHandle("overlay/20"));
+            // and again without any change
+            final Archive unchanged = Archive.reopen(archive);
+            assertFalse(unchanged.isIndexRelocated());
+            checkEntries(unchanged, 100);
+        }
+        // the index is not reused unless the new directory begins with a copy of the previous one
+        Files.write(path, base);
+        final Archive shorter = Archive.open(path, options);
+        Files.write(path, append(makeJar(99, ZipEntry.DEFLATED), overlay, false));
+        assertFalse(Archive.reopen(shorter).isIndexRelocated());
+        // nor unless incremental reopening is enabled
+        Files.write(path, base);
+        final Archive plain = Archive.open(path);
+        Files.write(path, append(base, overlay, false));
+        final Archive reopened = Archive.reopen(plain);
+        assertFalse(reopened.isIndexRelocated());
+        checkEntries(reopened, 100);
+        try {
+            Archive.reopen(Archive.open(ByteBuffer.wrap(base)));
+            fail("Expected exception");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testReopenReplaced() throws IOException {
+        final byte[] stored = makeJar(50, ZipEntry.STORED);
+        final Path path = tmp.newFile("replaced.jar").toPath();
+        Files.write(path, stored);
+        final Archive previous = Archive.open(path);
+        // replace the file with one of the same size whose data differs, as an update by renaming would
+        final byte[] content = entryContent(3);
+        final byte[] changed = stored.clone();
+        for (int i = 0; i <= changed.length - content.length; i ++) {
+            if (Arrays.equals(changed, i, i + content.length, content, 0, content.length)) {
+                changed[i] ^= 0x20;
+                break;
+            }
+        }
+        final Path replacement = tmp.newFile("replacement.jar").toPath();
+        Files.write(replacement, changed);
+        Files.move(replacement, path, StandardCopyOption.REPLACE_EXISTING);
+        final Archive archive = Archive.reopen(previous);
+        final byte[] expected = content.clone();
+        expected[0] ^= 0x20;
+        assertArrayEquals(expected, toArray(archive.getEntryContents(archive.getEntryHandle(entryName(3)))));
+        assertArrayEquals(content, toArray(previous.getEntryContents(previous.getEntryHandle(entryName(3)))));
+    }
+
+    /**
+     * Append the entries of one archive to another, writing a new directory which starts with a copy of the
+     * directory of the base archive.
+     */
+    private static byte[] append(byte[] base, byte[] addition, boolean keepDirectory) {
+        final ByteBuffer baseBuf = ByteBuffer.wrap(base).order(ByteOrder.LITTLE_ENDIAN);
+        final ByteBuffer additionBuf = ByteBuffer.wrap(addition).order(ByteOrder.LITTLE_ENDIAN);
+        final int baseEocd = base.length - Archive.EOCD_END;
+        final int baseCd = baseBuf.getInt(baseEocd + Archive.EOCD_CD_START_OFFSET);
+        final int baseCdSize = baseBuf.getInt(baseEocd + Archive.EOCD_CD_SIZE);
+        final int additionEocd = addition.length - Archive.EOCD_END;
+        final int additionCd = additionBuf.getInt(additionEocd + Archive.EOCD_CD_START_OFFSET);
+        final int additionCdSize = additionBuf.getInt(additionEocd + Archive.EOCD_CD_SIZE);
+        final int entries = baseBuf.getShort(baseEocd + Archive.EOCD_CDE_COUNT_ALL) + additionBuf.getShort(additionEocd + Archive.EOCD_CDE_COUNT_ALL);
+        final int shift = keepDirectory ? base.length : baseCd;
+        final ByteBuffer out = ByteBuffer.allocate(shift + additionCd + baseCdSize + additionCdSize + Archive.EOCD_END).order(ByteOrder.LITTLE_ENDIAN);
+        out.put(base, 0, shift);
+        out.put(addition, 0, additionCd);
+        final int cd = out.position();
+        out.put(base, baseCd, baseCdSize);
+        for (int cde = additionCd; cde < additionCd + additionCdSize; ) {
+            final int len = Archive.CDE_END + additionBuf.getShort(cde + Archive.CDE_FILE_NAME_LENGTH) + additionBuf.getShort(cde + Archive.CDE_EXTRA_LENGTH) + additionBuf.getShort(cde + Archive.CDE_COMMENT_LENGTH);
+            final int pos = out.position();
+            out.put(addition, cde, len);
+            out.putInt(pos + Archive.CDE_LOCAL_HEADER_OFFSET, additionBuf.getInt(cde + Archive.CDE_LOCAL_HEADER_OFFSET) + shift);
+            cde += len;
+        }
+        final int cdSize = out.position() - cd;
+        out.putInt(Archive.SIG_EOCD);
+        out.putShort((short) 0);
+        out.putShort((short) 0);
+        out.putShort((short) entries);
+        out.putShort((short) entries);
+        out.putInt(cdSize);
+        out.putInt(cd);
+        out.putShort((short) 0);
+        return out.array();
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        final ArchiveMetrics metrics = new ArchiveMetrics("test");
+        final ArchiveOptions options = ArchiveOptions.DEFAULT.withMetrics(metrics);
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(os)) {
+            final byte[] inner = makeJar(10, ZipEntry.STORED);
+            final ZipEntry stored = new ZipEntry("lib/stored.jar");
+            stored.setMethod(ZipEntry.STORED);
+            stored.setSize(inner.length);
+            final CRC32 crc32 = new CRC32();
+            crc32.update(inner);
+            stored.setCrc(crc32.getValue());
+            zos.putNextEntry(stored);
+            zos.write(inner);
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("deflated"));
+            zos.write(entryContent(1));
+            zos.closeEntry();
+        }
+        try (Archive archive = Archive.open(ByteBuffer.wrap(os.toByteArray()), options)) {
+            final long deflated = archive.getEntryHandle("deflated");
+            assertArrayEquals(entryContent(1), toArray(archive.getEntryContents(deflated)));
+            try (InputStream is = archive.getEntryStream(deflated)) {
+                assertArrayEquals(entryContent(1), is.readAllBytes());
+            }
+            // a channel which is never read does not inflate
+            archive.getEntryChannel(deflated).close();
+            assertEquals(-1, archive.getEntryHandle("missing"));
+            final Archive nested = archive.getNestedArchive(archive.getEntryHandle("lib/stored.jar"));
+            assertArrayEquals(entryContent(2), toArray(nested.getEntryContents(nested.getEntryHandle(entryName(2)))));
+        }
+        assertEquals(2, metrics.getOpenCount());
+        assertTrue(metrics.getOpenNanos() > 0);
+        assertEquals(1, metrics.getNestedOpenCount());
+        assertEquals(3, metrics.getHitCount());
+        assertEquals(1, metrics.getMissCount());
+        assertTrue(metrics.getProbeCount() >= 3);
+        assertEquals(2, metrics.getInflationCount());
+        assertEquals(2L * entryContent(1).length, metrics.getBytesInflated());
+        assertEquals(entryContent(2).length, metrics.getBytesMapped());
+        // export a snapshot as an event
+        final Path file = tmp.newFile("metrics.jfr").toPath();
+        try (Recording recording = new Recording()) {
+            recording.enable("org.wildfly.common.archive.ArchiveMetrics").withPeriod(Duration.ofMillis(10));
+            metrics.enableEvents();
+            try {
+                recording.start();
+                Thread.sleep(200);
+                recording.stop();
+            } finally {
+                metrics.disableEvents();
+            }
+            recording.dump(file);
+        }
+        final List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertFalse(events.isEmpty());
+        final RecordedEvent event = events.get(0);
+        assertEquals("test", event.getString("name"));
+        assertEquals(3, event.getLong("hits"));
+        assertEquals(2L * entryContent(1).length, event.getLong("bytesInflated"));
+    }
+
+    static void checkEntries(Archive archive, int count) throws IOException {
+        for (int i = 0; i < count; i ++) {
+            final long handle = archive.getEntryHandle(entryName(i));
+            assertNotEquals(-1, handle);
+            assertEquals(entryName(i), archive.getEntryName(handle));
+            assertArrayEquals(entryContent(i), toArray(archive.getEntryContents(handle)));
+        }
+        assertEquals(-1, archive.getEntryHandle(entryName(count)));
+    }
+
+    static String entryName(int i) {
+        return "org/example/pkg" + (i % 7) + "/Entry" + i + ".class";
+    }
+
+    static byte[] entryContent(int i) {
+        return (SIMPLE_CONTENT_1 + " #" + i).repeat(1 + i % 5).getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] toArray(ByteBuffer buf) {
+        final byte[] bytes = new byte[buf.remaining()];
+        buf.duplicate().get(bytes);
+        return bytes;
+    }
+
+    static byte[] makeJar(int count, int method) throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (JarOutputStream jos = new JarOutputStream(os)) {
+            for (int i = 0; i < count; i ++) {
+                final byte[] content = entryContent(i);
+                final JarEntry jarEntry = new JarEntry(entryName(i));
+                jarEntry.setSize(content.length);
+                if (method == ZipEntry.STORED) {
+                    jarEntry.setCompressedSize(content.length);
+                    final CRC32 crc32 = new CRC32();
+                    crc32.update(content);
+                    jarEntry.setCrc(crc32.getValue());
+                }
+                jarEntry.setMethod(method);
+                jos.putNextEntry(jarEntry);
+                jos.write(content);
+                jos.closeEntry();
+            }
+        }
+        return os.toByteArray();
+    }
 }
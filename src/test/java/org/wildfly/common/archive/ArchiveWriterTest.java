@@ -0,0 +1,168 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.common.archive;
+
+import static org.junit.Assert.*;
+import static org.wildfly.common.archive.ArchiveTest.entryContent;
+import static org.wildfly.common.archive.ArchiveTest.entryName;
+import static org.wildfly.common.archive.ArchiveTest.toArray;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ */
+public class ArchiveWriterTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        final Path path = tmp.newFile("written.zip").toPath();
+        final long time = 1_600_000_000_000L;
+        try (ArchiveWriter writer = ArchiveWriter.create(path, new ForkJoinPool(4))) {
+            writer.setModifiedTime(time);
+            writer.addDirectory("org/example");
+            for (int i = 0; i < 300; i ++) {
+                if (i % 3 == 0) {
+                    writer.addStoredEntry(entryName(i), ByteBuffer.wrap(entryContent(i)));
+                } else {
+                    writer.addEntry(entryName(i), entryContent(i));
+                }
+            }
+            // not compressible
+            writer.addEntry("tiny", new byte[] { 1 });
+            try {
+                writer.addEntry(entryName(1), new byte[0]);
+                fail("Expected exception");
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+        try (Archive archive = Archive.open(path)) {
+            archive.verifyAll(Runnable::run);
+            final long dir = archive.getEntryHandle("org/example/");
+            assertNotEquals(-1, dir);
+            assertTrue(archive.isDirectory(dir));
+            for (int i = 0; i < 300; i ++) {
+                final long handle = archive.getEntryHandle(entryName(i));
+                assertNotEquals(-1, handle);
+                assertFalse(archive.isDirectory(handle));
+                assertEquals(i % 3 == 0 ? Archive.METHOD_STORED : Archive.METHOD_DEFLATE, archive.getCompressionMethod(handle));
+                assertArrayEquals(entryContent(i), toArray(archive.getEntryContents(handle)));
+                assertEquals(time, archive.getModifiedTime(handle));
+            }
+            final long tiny = archive.getEntryHandle("tiny");
+            assertEquals(Archive.METHOD_STORED, archive.getCompressionMethod(tiny));
+            assertArrayEquals(new byte[] { 1 }, toArray(archive.getEntryContents(tiny)));
+        }
+        // cross-check with the JDK
+        try (ZipFile zipFile = new ZipFile(path.toFile())) {
+            assertEquals(302, zipFile.size());
+            for (int i = 0; i < 300; i ++) {
+                final ZipEntry entry = zipFile.getEntry(entryName(i));
+                assertArrayEquals(entryContent(i), zipFile.getInputStream(entry).readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    public void testRejectedEntryName() throws IOException {
+        final Path source = tmp.newFile("short.bin").toPath();
+        Files.write(source, entryContent(0));
+        final Path path = tmp.newFile("rejected.zip").toPath();
+        try (FileChannel fc = FileChannel.open(source, StandardOpenOption.READ)) {
+            try (ArchiveWriter writer = ArchiveWriter.create(path, ForkJoinPool.commonPool())) {
+                try {
+                    writer.addStoredEntry("entry", fc, 0, fc.size() + 1);
+                    fail("Expected exception");
+                } catch (IOException expected) {
+                }
+                // the rejected entry does not reserve its name
+                writer.addStoredEntry("entry", fc, 0, fc.size());
+            }
+        }
+        try (Archive archive = Archive.open(path)) {
+            assertArrayEquals(entryContent(0), toArray(archive.getEntryContents(archive.getEntryHandle("entry"))));
+        }
+    }
+
+    @Test
+    public void testCopyAndTransfer() throws IOException {
+        final Path source = tmp.newFile("source.bin").toPath();
+        final byte[] bytes = new byte[100_000];
+        for (int i = 0; i < bytes.length; i ++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        Files.write(source, bytes);
+        final Path path = tmp.newFile("copied.zip").toPath();
+        try (Archive jar = Archive.open(ByteBuffer.wrap(ArchiveTest.makeJar(20, ZipEntry.DEFLATED)))) {
+            try (ArchiveWriter writer = ArchiveWriter.create(path)) {
+                for (int i = 0; i < 20; i ++) {
+                    writer.copyEntry(jar, jar.getEntryHandle(entryName(i)));
+                }
+                try (FileChannel fc = FileChannel.open(source, StandardOpenOption.READ)) {
+                    writer.addStoredEntry("data.bin", fc, 1000, 50_000);
+                }
+            }
+        }
+        try (Archive archive = Archive.open(path)) {
+            archive.verifyAll(ForkJoinPool.commonPool());
+            for (int i = 0; i < 20; i ++) {
+                assertArrayEquals(entryContent(i), toArray(archive.getEntryContents(archive.getEntryHandle(entryName(i)))));
+            }
+            final byte[] expected = new byte[50_000];
+            System.arraycopy(bytes, 1000, expected, 0, expected.length);
+            assertArrayEquals(expected, toArray(archive.getEntryContents(archive.getEntryHandle("data.bin"))));
+        }
+    }
+
+    @Test
+    public void testZip64Directory() throws IOException {
+        // more entries than fit in the standard end of central directory record
+        final int count = 70_000;
+        final Path path = tmp.newFile("many.zip").toPath();
+        try (ArchiveWriter writer = ArchiveWriter.create(path)) {
+            for (int i = 0; i < count; i ++) {
+                writer.addStoredEntry("e" + i, ByteBuffer.wrap(new byte[] { (byte) i }));
+            }
+        }
+        try (Archive archive = Archive.open(path)) {
+            final long handle = archive.getEntryHandle("e" + (count - 1));
+            assertNotEquals(-1, handle);
+            assertArrayEquals(new byte[] { (byte) (count - 1) }, toArray(archive.getEntryContents(handle)));
+            assertEquals(count, archive.entriesWithPrefix("e").length);
+        }
+        try (ZipFile zipFile = new ZipFile(path.toFile())) {
+            assertEquals(count, zipFile.size());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.common.archive;
+
+import static org.junit.Assert.*;
+import static org.wildfly.common.archive.ArchiveTest.entryName;
+import static org.wildfly.common.archive.ArchiveTest.makeJar;
+import static org.wildfly.common.archive.ArchiveTest.makeMultiReleaseJar;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.ZipEntry;
+
+import org.junit.Test;
+
+/**
+ *
+ */
+public class ClassPathIndexTest {
+
+    @Test
+    public void testLookup() throws IOException {
+        // each archive contains the entries of the smaller ones
+        final Archive small = Archive.open(ByteBuffer.wrap(makeJar(10, ZipEntry.DEFLATED)));
+        final Archive medium = Archive.open(ByteBuffer.wrap(makeJar(100, ZipEntry.STORED)));
+        final Archive large = Archive.open(ByteBuffer.wrap(makeJar(1000, ZipEntry.DEFLATED)));
+        final ClassPathIndex index = new ClassPathIndex();
+        index.add(medium);
+        index.add(small);
+        index.add(large);
+        try {
+            index.add(small);
+            fail("Expected exception");
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(List.of(medium, small, large), index.getArchives());
+
+        ClassPathIndex.Match match = index.getFirst(entryName(5));
+        assertSame(medium, match.getArchive());
+        assertEquals(medium.getEntryHandle(entryName(5)), match.getEntryHandle());
+        assertEquals(List.of(medium, small, large), archivesOf(index.getAll(entryName(5))));
+        assertEquals(List.of(medium, large), archivesOf(index.getAll(entryName(50))));
+        assertSame(large, index.getFirst(entryName(500)).getArchive());
+        assertNull(index.getFirst(entryName(1000)));
+        assertTrue(index.getAll(entryName(1000)).isEmpty());
+
+        assertTrue(index.remove(medium));
+        assertFalse(index.remove(medium));
+        assertSame(small, index.getFirst(entryName(5)).getArchive());
+        assertEquals(List.of(large), archivesOf(index.getAll(entryName(50))));
+        // re-adding puts the archive last
+        index.add(medium);
+        assertEquals(List.of(small, large, medium), archivesOf(index.getAll(entryName(5))));
+        // removing the largest archive compacts the index
+        assertTrue(index.remove(large));
+        assertEquals(List.of(small, medium), index.getArchives());
+        assertEquals(List.of(small, medium), archivesOf(index.getAll(entryName(5))));
+        assertSame(medium, index.getFirst(entryName(50)).getArchive());
+        assertNull(index.getFirst(entryName(500)));
+        for (int i = 0; i < 100; i ++) {
+            final ClassPathIndex.Match m = index.getFirst(entryName(i));
+            assertEquals(entryName(i), m.getArchive().getEntryName(m.getEntryHandle()));
+        }
+    }
+
+    @Test
+    public void testMultiRelease() throws IOException {
+        final Archive multiRelease = Archive.open(ByteBuffer.wrap(makeMultiReleaseJar(true)), ArchiveOptions.DEFAULT.withMultiReleaseVersion(11));
+        final Archive plain = Archive.open(ByteBuffer.wrap(makeMultiReleaseJar(false)));
+        final ClassPathIndex index = new ClassPathIndex();
+        index.add(multiRelease);
+        index.add(plain);
+        for (String name : new String[] { "a/B.class", "a/C.class", "a/D.class", "META-INF/versions/17/a/B.class" }) {
+            final ClassPathIndex.Match match = index.getFirst(name);
+            assertSame(multiRelease, match.getArchive());
+            assertEquals(multiRelease.getEntryHandle(name), match.getEntryHandle());
+        }
+        assertEquals("META-INF/versions/11/a/B.class", multiRelease.getEntryName(index.getFirst("a/B.class").getEntryHandle()));
+        // the unversioned entry is hidden rather than found as well
+        assertEquals(List.of(multiRelease, plain), archivesOf(index.getAll("a/B.class")));
+        assertEquals(plain.getEntryHandle("a/B.class"), index.getAll("a/B.class").get(1).getEntryHandle());
+        assertNull(index.getFirst("a/E.class"));
+        assertTrue(index.remove(multiRelease));
+        assertSame(plain, index.getFirst("a/B.class").getArchive());
+    }
+
+    @Test
+    public void testConcurrentLookup() throws Exception {
+        final Archive small = Archive.open(ByteBuffer.wrap(makeJar(10, ZipEntry.DEFLATED)));
+        final Archive medium = Archive.open(ByteBuffer.wrap(makeJar(100, ZipEntry.STORED)));
+        final Archive large = Archive.open(ByteBuffer.wrap(makeJar(1000, ZipEntry.DEFLATED)));
+        final ClassPathIndex index = new ClassPathIndex();
+        index.add(small);
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Thread[] readers = new Thread[4];
+        for (int r = 0; r < readers.length; r ++) {
+            readers[r] = new Thread(() -> {
+                try {
+                    for (int i = 0; ! done.get(); i ++) {
+                        // the small archive is always present and always first
+                        final ClassPathIndex.Match match = index.getFirst(entryName(i % 10));
+                        assertSame(small, match.getArchive());
+                        assertEquals(entryName(i % 10), small.getEntryName(match.getEntryHandle()));
+                        final ClassPathIndex.Match other = index.getFirst(entryName(50 + i % 50));
+                        if (other != null) {
+                            assertEquals(entryName(50 + i % 50), other.getArchive().getEntryName(other.getEntryHandle()));
+                        }
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            });
+            readers[r].start();
+        }
+        try {
+            for (int i = 0; i < 200; i ++) {
+                index.add(medium);
+                index.add(large);
+                assertTrue(index.remove(i % 2 == 0 ? medium : large));
+                assertTrue(index.remove(i % 2 == 0 ? large : medium));
+            }
+        } finally {
+            done.set(true);
+            for (Thread reader : readers) {
+                reader.join();
+            }
+        }
+        if (failure.get() != null) {
+            throw new AssertionError("Lookup failed", failure.get());
+        }
+        assertEquals(List.of(small), index.getArchives());
+    }
+
+    private static List<Archive> archivesOf(List<ClassPathIndex.Match> matches) {
+        final List<Archive> list = new ArrayList<>();
+        for (ClassPathIndex.Match match : matches) {
+            list.add(match.getArchive());
+        }
+        return list;
+    }
+}
@@ -23,7 +23,11 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -283,6 +287,63 @@ public class Base64Test {
         doEncodeDecodeTest(generateSequence(257));
     }
 
+    /**
+     * Tests that bulk encoding and decoding of array and buffer backed iterators agrees with the JDK, including
+     * inputs which span several blocks and a trailing partial group.
+     */
+    @Test
+    public void testBulkEncodeDecode() throws Exception {
+        for (int len : new int[] { 0, 1, 2, 3, 4, 3071, 3072, 3073, 10000 }) {
+            final byte[] data = new byte[len + 5];
+            new Random(len).nextBytes(data);
+            final byte[] slice = Arrays.copyOfRange(data, 5, data.length);
+            final String expected = Base64.getEncoder().encodeToString(slice);
+            assertEquals(expected, ByteIterator.ofBytes(data, 5, len).base64Encode().drainToString());
+            assertEquals(expected, ByteIterator.ofByteBuffer(ByteBuffer.wrap(data, 5, len)).base64Encode().drainToString());
+            assertEquals(expected.replace("=", ""), ByteIterator.ofBytes(slice).base64Encode(Base64Alphabet.STANDARD, false).drainToString());
+            assertArrayEquals(slice, CodePointIterator.ofString(expected).base64Decode().drain());
+            assertArrayEquals(slice, CodePointIterator.ofChars(expected.toCharArray()).base64Decode().drain());
+        }
+    }
+
+    /**
+     * Tests that bulk encoding and decoding with a custom little-endian alphabet agrees with encoding and decoding
+     * one element at a time, and that bulk decoding still reports invalid characters.
+     */
+    @Test
+    public void testBulkEncodeDecodeCustomAlphabet() throws Exception {
+        final Base64Alphabet alphabet = new Base64Alphabet(true) {
+            public int encode(final int val) {
+                return Base64Alphabet.STANDARD.encode(63 - val);
+            }
+
+            public int decode(final int codePoint) {
+                final int val = Base64Alphabet.STANDARD.decode(codePoint);
+                return val == -1 ? -1 : 63 - val;
+            }
+        };
+        final byte[] data = new byte[5000];
+        new Random(17).nextBytes(data);
+        final CodePointIterator encoder = ByteIterator.ofBytes(data).base64Encode(alphabet);
+        final StringBuilder b = new StringBuilder();
+        while (encoder.hasNext()) {
+            b.appendCodePoint(encoder.next());
+        }
+        final String encoded = b.toString();
+        assertEquals(encoded, ByteIterator.ofBytes(data).base64Encode(alphabet).drainToString());
+        assertArrayEquals(data, CodePointIterator.ofString(encoded).base64Decode(alphabet).drain());
+        final ByteIterator decoder = CodePointIterator.ofString(encoded).base64Decode(alphabet);
+        for (byte d : data) {
+            assertEquals(d & 0xff, decoder.next());
+        }
+        assertFalse(decoder.hasNext());
+        try {
+            CodePointIterator.ofString(encoded.substring(0, 4000) + "\u00e1" + encoded.substring(4001)).base64Decode(alphabet).drain();
+            Assert.fail("Expected exception");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
     private void doEncodeDecodeTest(byte[] inputData) throws Exception {
         byte[] outputData = ByteIterator.ofBytes(inputData).base64Encode().base64Decode().drain();
         assertArrayEquals("Encode-Decode test failed, results are not the same.", inputData, outputData);
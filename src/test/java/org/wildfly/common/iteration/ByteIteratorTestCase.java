@@ -0,0 +1,305 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.common.iteration;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link ByteIterator} and its UTF-8 views.
+ */
+public class ByteIteratorTestCase {
+
+    private static final String[] STRINGS = {
+        "",
+        "a",
+        "org.wildfly.common.iteration.ByteIterator",
+        "Content-Type: text/plain; charset=UTF-8\r\n",
+        "café au lait, naïve résumé",
+        "é",
+        "日本語のテキスト and some ASCII after it",
+        "emoji 😀 between😁",
+        "0123456789abcdef0123456789abcdefÿ0123456789abcdef",
+    };
+
+    @Test
+    public void testUtf8Decode() {
+        for (String string : STRINGS) {
+            final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            assertEquals(string, ByteIterator.ofBytes(bytes).asUtf8String().drainToString());
+            assertEquals(string, ByteIterator.ofByteBuffer(ByteBuffer.wrap(bytes)).asUtf8String().drainToString());
+            assertEquals(string, ByteIterator.ofByteBuffer(ByteBuffer.allocateDirect(bytes.length).put(bytes).flip()).asUtf8String().drainToString());
+            final byte[] padded = new byte[bytes.length + 6];
+            System.arraycopy(bytes, 0, padded, 3, bytes.length);
+            final CodePointIterator iter = ByteIterator.ofBytes(padded, 3, bytes.length).asUtf8String();
+            assertEquals(string, iter.drainToString());
+            assertEquals(string.codePointCount(0, string.length()), iter.getIndex());
+            assertFalse(iter.hasNext());
+        }
+    }
+
+    @Test
+    public void testUtf8DecodeInvalid() {
+        final byte[] bytes = { 'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', (byte) 0x80, 'i', (byte) 0xc3 };
+        assertEquals("abcdefgh�i�", ByteIterator.ofBytes(bytes).asUtf8String().drainToString());
+    }
+
+    @Test
+    public void testUtf8ContentEquals() {
+        for (String string : STRINGS) {
+            final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            assertTrue(ByteIterator.ofBytes(bytes).asUtf8String().contentEquals(string));
+            assertTrue(ByteIterator.ofByteBuffer(ByteBuffer.wrap(bytes)).asUtf8String().contentEquals(string));
+            assertFalse(ByteIterator.ofBytes(bytes).asUtf8String().contentEquals(string + "x"));
+            if (! string.isEmpty()) {
+                assertFalse(ByteIterator.ofBytes(bytes).asUtf8String().contentEquals(string.substring(0, string.length() - 1)));
+            }
+        }
+        // the iterator is left at the first difference
+        final CodePointIterator iter = ByteIterator.ofBytes("content-type".getBytes(StandardCharsets.UTF_8)).asUtf8String();
+        assertFalse(iter.contentEquals("content-length"));
+        assertEquals(8, iter.getIndex());
+        assertEquals('t', iter.next());
+    }
+
+    @Test
+    public void testUtf8Encode() {
+        for (String string : STRINGS) {
+            final byte[] expected = string.getBytes(StandardCharsets.UTF_8);
+            assertArrayEquals(expected, CodePointIterator.ofString(string).asUtf8().drain());
+            assertArrayEquals(expected, CodePointIterator.ofChars(string.toCharArray()).asUtf8().drain());
+            final ByteIterator iter = CodePointIterator.ofString(string).asUtf8();
+            final byte[] dst = new byte[expected.length + 2];
+            assertEquals(expected.length, iter.drain(dst, 1, expected.length + 1));
+            for (int i = 0; i < expected.length; i ++) {
+                assertEquals(expected[i], dst[i + 1]);
+            }
+            assertEquals(expected.length, iter.getIndex());
+        }
+    }
+
+    @Test
+    public void testOfInputStream() {
+        final byte[] data = new byte[100_000];
+        new Random(23).nextBytes(data);
+        final String encoded = Base64.getEncoder().encodeToString(data);
+        final byte[] encodedBytes = encoded.getBytes(StandardCharsets.US_ASCII);
+        // decode from a stream which returns short reads, through a window smaller than one block
+        assertArrayEquals(data, ByteIterator.ofInputStream(trickle(encodedBytes), 100).asUtf8String().base64Decode().drain());
+        assertArrayEquals(data, ByteIterator.ofChannel(Channels.newChannel(trickle(encodedBytes))).asLatin1String().base64Decode().drain());
+        assertEquals(encoded, ByteIterator.ofInputStream(new ByteArrayInputStream(data), 7).base64Encode().drainToString());
+        assertEquals(ByteIterator.ofBytes(data).hexEncode().drainToString(), ByteIterator.ofInputStream(trickle(data), 1).hexEncode().drainToString());
+        for (String string : STRINGS) {
+            final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            assertEquals(string, ByteIterator.ofInputStream(trickle(bytes), 3).asUtf8String().drainToString());
+        }
+    }
+
+    @Test
+    public void testOfInputStreamPrevious() {
+        final byte[] data = new byte[1000];
+        for (int i = 0; i < data.length; i ++) {
+            data[i] = (byte) i;
+        }
+        final ByteIterator iter = ByteIterator.ofInputStream(trickle(data), 16);
+        assertFalse(iter.hasPrevious());
+        for (int i = 0; i < 500; i ++) {
+            assertEquals(i & 0xff, iter.next());
+        }
+        assertEquals(500, iter.getIndex());
+        // at least 64 bytes of history are kept
+        for (int i = 499; i >= 436; i --) {
+            assertEquals(i & 0xff, iter.peekPrevious());
+            assertEquals(i & 0xff, iter.previous());
+        }
+        assertEquals(436, iter.getIndex());
+        final byte[] rest = iter.drain();
+        assertEquals(564, rest.length);
+        assertEquals((byte) 436, rest[0]);
+        assertFalse(iter.hasNext());
+        assertEquals(1000, iter.getIndex());
+    }
+
+    @Test
+    public void testOfInputStreamError() {
+        final ByteIterator iter = ByteIterator.ofInputStream(new InputStream() {
+            public int read() throws IOException {
+                throw new IOException("Broken");
+            }
+        }, 16);
+        try {
+            iter.hasNext();
+            fail("Expected exception");
+        } catch (UncheckedIOException e) {
+            assertEquals("Broken", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testTransferTo() throws IOException {
+        final byte[] data = new byte[50_000];
+        new Random(29).nextBytes(data);
+        final String encoded = Base64.getEncoder().encodeToString(data);
+        final StringWriter writer = new StringWriter();
+        assertEquals(encoded, ByteIterator.ofBytes(data).base64Encode().drainTo(writer).toString());
+        final StringWriter hexWriter = new StringWriter();
+        ByteIterator.ofInputStream(new ByteArrayInputStream(data), 1000).hexEncode().drainTo(hexWriter);
+        assertEquals(ByteIterator.ofBytes(data).hexEncode().drainToString(), hexWriter.toString());
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        assertEquals(data.length, CodePointIterator.ofString(encoded).base64Decode().transferTo(os));
+        assertArrayEquals(data, os.toByteArray());
+        os.reset();
+        assertEquals(data.length, ByteIterator.ofBytes(encoded.getBytes(StandardCharsets.US_ASCII)).asLatin1String().base64Decode().transferTo(Channels.newChannel(os)));
+        assertArrayEquals(data, os.toByteArray());
+        os.reset();
+        assertEquals(data.length - 10, ByteIterator.ofBytes(data, 10, data.length - 10).transferTo(os));
+        assertArrayEquals(Arrays.copyOfRange(data, 10, data.length), os.toByteArray());
+        os.reset();
+        final ByteBuffer buffer = ByteBuffer.wrap(data);
+        assertEquals(data.length, ByteIterator.ofByteBuffer(buffer).transferTo(Channels.newChannel(os)));
+        assertFalse(buffer.hasRemaining());
+        assertArrayEquals(data, os.toByteArray());
+    }
+
+    @Test
+    public void testDrainToWriterSurrogates() throws IOException {
+        final StringBuilder b = new StringBuilder();
+        for (int i = 0; i < 5000; i ++) {
+            b.append("a😀");
+        }
+        final String string = b.toString();
+        final CodePointIterator iter = CodePointIterator.ofString(string);
+        assertEquals(string, iter.drainTo(new StringWriter()).toString());
+        assertEquals(10000, iter.getIndex());
+        assertEquals(string, CodePointIterator.ofChars(string.toCharArray()).drainTo(new StringWriter()).toString());
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        assertEquals(string, ByteIterator.ofBytes(bytes).asUtf8String().drainTo(new StringWriter()).toString());
+    }
+
+    @Test
+    public void testGetters() {
+        final byte[] data = new byte[40];
+        new Random(31).nextBytes(data);
+        final ByteBuffer be = ByteBuffer.wrap(data, 3, 28).slice();
+        final ByteBuffer le = be.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        final ByteIterator[] iters = {
+            ByteIterator.ofBytes(data, 3, 28),
+            ByteIterator.ofByteBuffer(ByteBuffer.wrap(data, 3, 28)),
+            ByteIterator.ofByteBuffer(ByteBuffer.wrap(data, 3, 28).order(ByteOrder.LITTLE_ENDIAN)),
+            ByteIterator.ofByteBuffer(ByteBuffer.allocateDirect(28).put(be.duplicate()).flip()),
+            skipTwo(ByteIterator.ofBytes(data, 1, 39)).limitedTo(28),
+            ByteIterator.ofIterators(ByteIterator.ofBytes(data, 3, 5), ByteIterator.ofBytes(data, 8, 23)),
+            CodePointIterator.ofString(new String(data, 3, 28, StandardCharsets.ISO_8859_1)).asLatin1(),
+        };
+        for (ByteIterator iter : iters) {
+            assertEquals(be.getShort(0) & 0xffff, iter.getBE16());
+            assertEquals(le.getShort(2) & 0xffff, iter.getLE16());
+            assertEquals(be.getInt(4), iter.getBE32());
+            assertEquals(le.getInt(8), iter.getLE32());
+            assertEquals(be.getLong(12), iter.getBE64());
+            assertEquals(le.getLong(20), iter.getLE64());
+            assertEquals(28, iter.getIndex());
+            assertFalse(iter.hasNext());
+        }
+    }
+
+    @Test
+    public void testDrainAndSkip() {
+        final byte[] data = new byte[1000];
+        new Random(37).nextBytes(data);
+        for (int kind = 0; kind < 4; kind ++) {
+            final ByteIterator iter;
+            switch (kind) {
+                case 0: iter = ByteIterator.ofBytes(data, 0, 1000); break;
+                case 1: iter = ByteIterator.ofByteBuffer(ByteBuffer.wrap(data)); break;
+                case 2: iter = ByteIterator.ofBytes(data).limitedTo(1000); break;
+                default: iter = ByteIterator.ofIterators(ByteIterator.ofBytes(data, 0, 300), ByteIterator.ofBytes(data, 300, 700)); break;
+            }
+            assertEquals(100, iter.skip(100));
+            final ByteBuffer heap = ByteBuffer.allocate(250);
+            assertEquals(250, iter.drain(heap));
+            assertArrayEquals(Arrays.copyOfRange(data, 100, 350), heap.array());
+            final ByteBuffer direct = ByteBuffer.allocateDirect(300);
+            assertEquals(300, iter.drain(direct));
+            for (int i = 0; i < 300; i ++) {
+                assertEquals(data[350 + i], direct.get(i));
+            }
+            final byte[] array = new byte[210];
+            assertEquals(200, iter.drain(array, 10, 200));
+            assertArrayEquals(Arrays.copyOfRange(data, 650, 850), Arrays.copyOfRange(array, 10, 210));
+            assertEquals(850, iter.getIndex());
+            assertEquals(150, iter.skip(1000));
+            assertEquals(0, iter.skip(1));
+            assertEquals(0, iter.drain(ByteBuffer.allocate(1)));
+            assertEquals(1000, iter.getIndex());
+            assertTrue(iter.hasPrevious());
+        }
+        // a limited iterator does not drain or skip past its limit
+        final ByteIterator limited = ByteIterator.ofBytes(data).limitedTo(10);
+        assertEquals(10, limited.drain(ByteBuffer.allocate(20)));
+        assertFalse(limited.hasNext());
+        assertEquals(5, ByteIterator.ofBytes(data).limitedTo(5).skip(20));
+    }
+
+    @Test
+    public void testGettersAtEnd() {
+        final ByteIterator iter = ByteIterator.ofBytes(new byte[] { 1, 2, 3 });
+        try {
+            iter.getBE32();
+            fail("Expected exception");
+        } catch (NoSuchElementException expected) {
+        }
+    }
+
+    private static ByteIterator skipTwo(ByteIterator iter) {
+        assertEquals(2, iter.skip(2));
+        return iter;
+    }
+
+    /**
+     * Get a stream which returns at most 5 bytes from each read.
+     */
+    private static InputStream trickle(byte[] bytes) {
+        return new ByteArrayInputStream(bytes) {
+            public synchronized int read(final byte[] b, final int off, final int len) {
+                return super.read(b, off, Math.min(len, 5));
+            }
+        };
+    }
+}